@@ -3,8 +3,8 @@ package map;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 2.1,
-    lastModified = "05/09/2020",
+    currentRevision = 3,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Acceleration {
@@ -16,8 +16,9 @@ public class Acceleration {
    * @return the Acceleration vector from the two components
    */
   public static Acceleration accelerationFromComponents(double xComponent, double yComponent) {
-    return new Acceleration(Velocity.magnitudeFromComponents(xComponent, yComponent),
-        Velocity.orientationFromComponents(xComponent, yComponent));
+    Acceleration acceleration = new Acceleration();
+    acceleration.setComponents(xComponent, yComponent);
+    return acceleration;
   }
 
   /**
@@ -31,8 +32,8 @@ public class Acceleration {
         acceleration1.getYMagnitude() + acceleration2.getYMagnitude());
   }
 
-  private double magnitude;
-  private double orientation;
+  private double xComponent;
+  private double yComponent;
 
   /**
    * This class is used as a basis for other classes
@@ -43,33 +44,53 @@ public class Acceleration {
    */
   public Acceleration(double magnitude, double orientation) {
 
-    this.magnitude = magnitude;
-    this.orientation = orientation;
+    setPolar(magnitude, orientation);
 
   }
 
+  /**
+   * The vector is stored by its components so that integrating it never goes through trigonometry;
+   * the polar form is only computed when asked for, e.g. by the renderer
+   */
+  private Acceleration() {
+  }
+
   public double getMagnitude() {
-    return magnitude;
+    return Velocity.magnitudeFromComponents(xComponent, yComponent);
   }
 
+  /**
+   *
+   * @return the orientation of the vector, 0 if the vector is null
+   */
   public double getOrientation() {
-    return orientation;
+    return Velocity.orientationFromComponents(xComponent, yComponent);
   }
 
   public void setMagnitude(double magnitude) {
-    this.magnitude = magnitude;
+    setPolar(magnitude, getOrientation());
   }
 
   public void setOrientation(double orientation) {
-    this.orientation = orientation;
+    setPolar(getMagnitude(), orientation);
+  }
+
+  public void setPolar(double magnitude, double orientation) {
+    xComponent = magnitude * Math.cos(orientation);
+    yComponent = magnitude * Math.sin(orientation);
+  }
+
+  public void setComponents(double xComponent, double yComponent) {
+    this.xComponent = xComponent;
+    this.yComponent = yComponent;
   }
 
   public double getXMagnitude() {
-    return magnitude * Math.cos(orientation);
+    return xComponent;
   }
 
   public double getYMagnitude() {
-    return magnitude * Math.sin(orientation);
+    return yComponent;
   }
 
 }
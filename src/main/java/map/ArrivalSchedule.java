@@ -0,0 +1,152 @@
+package map;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class ArrivalSchedule {
+
+  public static final double SECONDS_PER_HOUR = 3600;
+
+  private final double period; // the length of each step of the rates, in seconds
+  private final double[][] rates; // the arrival rate of each origin during each step, in vehicles per second
+
+  /**
+   * The ArrivalSchedule is a non-homogeneous Poisson arrival process for each origin of a Crossroad, whose rate is
+   * constant during each step of a fixed length; arrivals stop after the last step
+   * It does not change once created, so one schedule may drive any number of Crossroads
+   *
+   * @param period the length of each step, in seconds
+   * @param rates the arrival rate of each origin during each step, in vehicles per second
+   */
+  public ArrivalSchedule(double period, double[][] rates) {
+
+    this.period = period;
+    this.rates = new double[4][];
+
+    for(int origin = 0; origin < 4; origin++) this.rates[origin] = rates[origin].clone();
+
+  }
+
+  /**
+   *
+   * @param volumes the number of vehicles coming from each origin during each hour of a day
+   * @param startHour the hour of the day the simulation starts at
+   * @param demandScale the factor of every volume
+   * @return the schedule of the day from the start hour to midnight
+   */
+  public static ArrivalSchedule fromHourlyVolumes(double[][] volumes, int startHour, double demandScale) {
+
+    double[][] rates = new double[4][];
+
+    for(int origin = 0; origin < 4; origin++) {
+      rates[origin] = new double[volumes[origin].length - startHour];
+      for(int step = 0; step < rates[origin].length; step++)
+        rates[origin][step] = volumes[origin][startHour + step] * demandScale / SECONDS_PER_HOUR;
+    }
+
+    return new ArrivalSchedule(SECONDS_PER_HOUR, rates);
+  }
+
+  /**
+   *
+   * @param hourlyRates the number of vehicles coming from each origin per hour, at any time
+   * @return the schedule of a homogeneous Poisson arrival process for each origin, without an end
+   */
+  public static ArrivalSchedule constant(double[] hourlyRates) {
+
+    double[][] rates = new double[4][1];
+    for(int origin = 0; origin < 4; origin++) rates[origin][0] = hourlyRates[origin] / SECONDS_PER_HOUR;
+
+    return new ArrivalSchedule(Double.POSITIVE_INFINITY, rates);
+  }
+
+  public double getPeriod() {
+    return period;
+  }
+
+  public int getNumSteps() {
+    return rates[0].length;
+  }
+
+  /**
+   *
+   * @return the time after which there is no more arrival, in seconds
+   */
+  public double getEndTime() {
+    return period * getNumSteps();
+  }
+
+  /**
+   *
+   * @param origin an origin
+   * @param time a time, in seconds
+   * @return the arrival rate of the origin at the time, in vehicles per second
+   */
+  public double getRate(int origin, double time) {
+
+    int step = (int)Math.floor(time / period);
+
+    return step >= 0 && step < getNumSteps() ? rates[origin][step] : 0;
+  }
+
+  /**
+   * draws the time of the next arrival by inverting the cumulated rate: an exponential amount of the cumulated rate,
+   * of mean 1, is spent step after step
+   *
+   * @param origin an origin
+   * @param time the time of the last arrival, in seconds
+   * @param stream the stream the draw is taken from; exactly one number is drawn
+   * @return the time of the next arrival, in seconds, or infinity if there is none before the end of the schedule
+   */
+  public double nextArrival(int origin, double time, RandomStream stream) {
+
+    double remaining = -Math.log(1 - stream.nextDouble());
+
+    for(int step = Math.max(0, (int)Math.floor(time / period)); step < getNumSteps(); step++) {
+
+      double stepEnd = (step + 1) * period;
+      double available = rates[origin][step] == 0 ? 0 : rates[origin][step] * (stepEnd - time);
+
+      if(remaining < available) return time + remaining / rates[origin][step];
+
+      remaining -= available;
+      time = stepEnd;
+
+    }
+
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * writes the schedule: double period, int number of steps, then the rates of each origin
+   */
+  public void writeTo(DataOutput output) throws IOException {
+
+    output.writeDouble(period);
+    output.writeInt(getNumSteps());
+
+    for(double[] originRates: rates) for(double rate: originRates) output.writeDouble(rate);
+
+  }
+
+  public static ArrivalSchedule readFrom(DataInput input) throws IOException {
+
+    double period = input.readDouble();
+    int numSteps = input.readInt();
+
+    double[][] rates = new double[4][numSteps];
+    for(int origin = 0; origin < 4; origin++) for(int step = 0; step < numSteps; step++)
+      rates[origin][step] = input.readDouble();
+
+    return new ArrivalSchedule(period, rates);
+  }
+
+}
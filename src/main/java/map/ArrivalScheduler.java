@@ -0,0 +1,320 @@
+package map;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class ArrivalScheduler {
+
+  public static final int INITIAL_CAPACITY = 16;
+
+  // the pending arrival events, as a binary heap ordered by time, then by the order they were scheduled in
+
+  private double[] eventTimes;
+  private long[] eventSequences;
+  private int[] eventOrigins;
+  private boolean[] eventRecurring;
+  private int numEvents;
+  private long nextSequence;
+
+  // the vehicles that have arrived but not entered yet, as a ring buffer for each origin
+
+  private final double[][] arrivalTimes;
+  private final int[][] ids;
+  private final int[][] destinations;
+  private final int[] heads;
+  private final int[] queueLengths;
+
+  /**
+   * The ArrivalScheduler holds the arrivals of a Crossroad in two stages: the arrival events, in the order of their
+   * times, and, once they have come, the vehicles waiting at each origin until the entry of its Lane is clear
+   * A waiting vehicle only exists as its id, arrival time and destination: the queue is a store-and-forward queue, not
+   * a line of vehicles outside the panel, so it costs nothing to step
+   */
+  public ArrivalScheduler() {
+
+    eventTimes = new double[INITIAL_CAPACITY];
+    eventSequences = new long[INITIAL_CAPACITY];
+    eventOrigins = new int[INITIAL_CAPACITY];
+    eventRecurring = new boolean[INITIAL_CAPACITY];
+    numEvents = 0;
+    nextSequence = 0;
+
+    arrivalTimes = new double[4][INITIAL_CAPACITY];
+    ids = new int[4][INITIAL_CAPACITY];
+    destinations = new int[4][INITIAL_CAPACITY];
+    heads = new int[4];
+    queueLengths = new int[4];
+
+  }
+
+  /**
+   *
+   * @param time when the vehicle arrives, in seconds
+   * @param origin where it arrives
+   * @param recurring whether the event stands for an arrival process, which draws its next arrival when it comes
+   */
+  public void schedule(double time, int origin, boolean recurring) {
+
+    if(numEvents == eventTimes.length) {
+      eventTimes = Arrays.copyOf(eventTimes, numEvents * 2);
+      eventSequences = Arrays.copyOf(eventSequences, numEvents * 2);
+      eventOrigins = Arrays.copyOf(eventOrigins, numEvents * 2);
+      eventRecurring = Arrays.copyOf(eventRecurring, numEvents * 2);
+    }
+
+    int child = numEvents++;
+
+    setEvent(child, time, nextSequence++, origin, recurring);
+
+    while(child > 0 && precedes(child, (child - 1) / 2)) {
+      swapEvents(child, (child - 1) / 2);
+      child = (child - 1) / 2;
+    }
+
+  }
+
+  private void setEvent(int position, double time, long sequence, int origin, boolean recurring) {
+    eventTimes[position] = time;
+    eventSequences[position] = sequence;
+    eventOrigins[position] = origin;
+    eventRecurring[position] = recurring;
+  }
+
+  private boolean precedes(int first, int second) {
+    return eventTimes[first] < eventTimes[second]
+        || (eventTimes[first] == eventTimes[second] && eventSequences[first] < eventSequences[second]);
+  }
+
+  private void swapEvents(int first, int second) {
+
+    double time = eventTimes[first];
+    long sequence = eventSequences[first];
+    int origin = eventOrigins[first];
+    boolean recurring = eventRecurring[first];
+
+    setEvent(first, eventTimes[second], eventSequences[second], eventOrigins[second], eventRecurring[second]);
+    setEvent(second, time, sequence, origin, recurring);
+
+  }
+
+  public int getNumEvents() {
+    return numEvents;
+  }
+
+  /**
+   *
+   * @return the time of the earliest event, or infinity if there is none
+   */
+  public double peekTime() {
+    return numEvents > 0 ? eventTimes[0] : Double.POSITIVE_INFINITY;
+  }
+
+  public int peekOrigin() {
+    return eventOrigins[0];
+  }
+
+  public boolean peekRecurring() {
+    return eventRecurring[0];
+  }
+
+  /**
+   * removes the earliest event
+   */
+  public void poll() {
+
+    numEvents--;
+
+    setEvent(0, eventTimes[numEvents], eventSequences[numEvents], eventOrigins[numEvents], eventRecurring[numEvents]);
+
+    int parent = 0;
+
+    while(true) {
+
+      int child = parent * 2 + 1;
+      if(child >= numEvents) break;
+      if(child + 1 < numEvents && precedes(child + 1, child)) child++;
+      if(!precedes(child, parent)) break;
+
+      swapEvents(parent, child);
+      parent = child;
+
+    }
+
+  }
+
+  /**
+   * lets an arrived vehicle wait at the end of the queue of its origin
+   */
+  public void enqueue(int origin, int id, double arrivalTime, int destination) {
+
+    if(queueLengths[origin] == ids[origin].length) {
+
+      int capacity = ids[origin].length;
+
+      arrivalTimes[origin] = unwrap(arrivalTimes[origin], heads[origin], capacity * 2);
+      ids[origin] = unwrap(ids[origin], heads[origin], capacity * 2);
+      destinations[origin] = unwrap(destinations[origin], heads[origin], capacity * 2);
+      heads[origin] = 0;
+
+    }
+
+    int tail = (heads[origin] + queueLengths[origin]++) % ids[origin].length;
+
+    arrivalTimes[origin][tail] = arrivalTime;
+    ids[origin][tail] = id;
+    destinations[origin][tail] = destination;
+
+  }
+
+  private static double[] unwrap(double[] ring, int head, int capacity) {
+
+    double[] array = new double[capacity];
+
+    System.arraycopy(ring, head, array, 0, ring.length - head);
+    System.arraycopy(ring, 0, array, ring.length - head, head);
+
+    return array;
+  }
+
+  private static int[] unwrap(int[] ring, int head, int capacity) {
+
+    int[] array = new int[capacity];
+
+    System.arraycopy(ring, head, array, 0, ring.length - head);
+    System.arraycopy(ring, 0, array, ring.length - head, head);
+
+    return array;
+  }
+
+  /**
+   *
+   * @param origin an origin
+   * @return the number of vehicles waiting to enter from the origin
+   */
+  public int getQueueLength(int origin) {
+    return queueLengths[origin];
+  }
+
+  /**
+   *
+   * @param origin an origin
+   * @param position the position in the queue of the origin, 0 for its head
+   * @return when the vehicle arrived, in seconds
+   */
+  public double getArrivalTime(int origin, int position) {
+    return arrivalTimes[origin][(heads[origin] + position) % ids[origin].length];
+  }
+
+  public int getId(int origin, int position) {
+    return ids[origin][(heads[origin] + position) % ids[origin].length];
+  }
+
+  public int getDestination(int origin, int position) {
+    return destinations[origin][(heads[origin] + position) % ids[origin].length];
+  }
+
+  /**
+   * removes the vehicle at the head of the queue of an origin, once it has entered
+   */
+  public void dequeue(int origin) {
+    heads[origin] = (heads[origin] + 1) % ids[origin].length;
+    queueLengths[origin]--;
+  }
+
+  /**
+   *
+   * @return whether there is neither an event pending nor a vehicle waiting
+   */
+  public boolean isEmpty() {
+    return numEvents == 0 && queueLengths[0] + queueLengths[1] + queueLengths[2] + queueLengths[3] == 0;
+  }
+
+  /**
+   * makes this scheduler a copy of another one, down to the order of the events scheduled at the same time
+   */
+  public void copyFrom(ArrivalScheduler other) {
+
+    eventTimes = other.eventTimes.clone();
+    eventSequences = other.eventSequences.clone();
+    eventOrigins = other.eventOrigins.clone();
+    eventRecurring = other.eventRecurring.clone();
+    numEvents = other.numEvents;
+    nextSequence = other.nextSequence;
+
+    for(int origin = 0; origin < 4; origin++) {
+      arrivalTimes[origin] = other.arrivalTimes[origin].clone();
+      ids[origin] = other.ids[origin].clone();
+      destinations[origin] = other.destinations[origin].clone();
+      heads[origin] = other.heads[origin];
+      queueLengths[origin] = other.queueLengths[origin];
+    }
+
+  }
+
+  /**
+   * writes the scheduler: int number of events, long next sequence, then for each event in the order of the heap:
+   * double time, long sequence, byte origin, boolean recurring, then for each origin: int number of waiting vehicles,
+   * then for each from the head of the queue: int id, double arrival time, byte destination
+   */
+  public void writeTo(DataOutput output) throws IOException {
+
+    output.writeInt(numEvents);
+    output.writeLong(nextSequence);
+
+    for(int event = 0; event < numEvents; event++) {
+      output.writeDouble(eventTimes[event]);
+      output.writeLong(eventSequences[event]);
+      output.writeByte(eventOrigins[event]);
+      output.writeBoolean(eventRecurring[event]);
+    }
+
+    for(int origin = 0; origin < 4; origin++) {
+      output.writeInt(queueLengths[origin]);
+      for(int position = 0; position < queueLengths[origin]; position++) {
+        output.writeInt(getId(origin, position));
+        output.writeDouble(getArrivalTime(origin, position));
+        output.writeByte(getDestination(origin, position));
+      }
+    }
+
+  }
+
+  public static ArrivalScheduler readFrom(DataInput input) throws IOException {
+
+    ArrivalScheduler scheduler = new ArrivalScheduler();
+
+    int numEvents = input.readInt();
+
+    scheduler.nextSequence = input.readLong();
+
+    // the heap was written in its own order, which is kept as it is
+
+    scheduler.eventTimes = new double[Math.max(INITIAL_CAPACITY, numEvents)];
+    scheduler.eventSequences = new long[scheduler.eventTimes.length];
+    scheduler.eventOrigins = new int[scheduler.eventTimes.length];
+    scheduler.eventRecurring = new boolean[scheduler.eventTimes.length];
+
+    for(int event = 0; event < numEvents; event++)
+      scheduler.setEvent(event, input.readDouble(), input.readLong(), input.readByte(), input.readBoolean());
+
+    scheduler.numEvents = numEvents;
+
+    for(int origin = 0; origin < 4; origin++) {
+      int queueLength = input.readInt();
+      for(int position = 0; position < queueLength; position++)
+        scheduler.enqueue(origin, input.readInt(), input.readDouble(), input.readByte());
+    }
+
+    return scheduler;
+  }
+
+}
@@ -0,0 +1,446 @@
+package map;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class BenchmarkRunner {
+
+  public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+  public static final int DEFAULT_ITERATIONS = 5;
+  public static final long DEFAULT_ITERATION_MILLISECONDS = 1000;
+
+  /**
+   * the number of vehicles the Crossroad.passTime benchmarks are run with
+   */
+  public static final int[] NUM_VEHICLES = {10, 100, 1000, 10000};
+
+  /**
+   * the number of intervals after which the Crossroad.passTime benchmarks start again from their initial Crossroad,
+   * before the vehicles waiting to enter outnumber those on the road
+   */
+  public static final int RESET_INTERVALS = 1024;
+
+  /**
+   * the number of bodies the geometric benchmarks go through, so that the branches are not all predicted
+   */
+  public static final int NUM_SAMPLES = 1024;
+
+  public static final long SEED = 0;
+
+  private final int warmupIterations;
+  private final int iterations;
+  private final long iterationNanoseconds;
+  private final ThreadMXBean threadMXBean;
+  private final boolean countsAllocations;
+  private long sink; // every value returned by the operations ends up here
+
+  /**
+   * The BenchmarkRunner measures MicroBenchmarks the way JMH does in its throughput mode with the GC profiler: each one
+   * is warmed up, then run for a number of timed iterations, and every iteration reports the operations per second and
+   * the bytes allocated per operation by the measuring thread
+   *
+   * @param warmupIterations the number of iterations run before measuring
+   * @param iterations the number of measured iterations
+   * @param iterationMilliseconds the duration of each iteration
+   */
+  public BenchmarkRunner(int warmupIterations, int iterations, long iterationMilliseconds) {
+
+    this.warmupIterations = warmupIterations;
+    this.iterations = iterations;
+    this.iterationNanoseconds = iterationMilliseconds * 1000000L;
+
+    threadMXBean = ManagementFactory.getThreadMXBean();
+    countsAllocations = threadMXBean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported();
+
+    if(countsAllocations) ((com.sun.management.ThreadMXBean)threadMXBean).setThreadAllocatedMemoryEnabled(true);
+
+  }
+
+  private long getAllocatedBytes() {
+    return countsAllocations
+        ? ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+
+  /**
+   * The result of one benchmark: one value per measured iteration
+   */
+  public static class Result {
+
+    private final String name;
+    private final double[] operationsPerSecond;
+    private final double[] bytesPerOperation;
+
+    public Result(String name, double[] operationsPerSecond, double[] bytesPerOperation) {
+      this.name = name;
+      this.operationsPerSecond = operationsPerSecond;
+      this.bytesPerOperation = bytesPerOperation;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public SampleStatistics getThroughputStatistics() {
+      return new SampleStatistics(operationsPerSecond);
+    }
+
+    /**
+     *
+     * @return the statistics of the bytes allocated per operation, NaN if the JVM does not count them
+     */
+    public SampleStatistics getAllocationStatistics() {
+      return new SampleStatistics(bytesPerOperation);
+    }
+
+  }
+
+  /**
+   * runs the operation in batches until the duration of an iteration has elapsed; the batches grow so that reading
+   * the clock costs little next to the operations
+   *
+   * @return the number of operations run and the nanoseconds elapsed
+   */
+  private long[] runIteration(MicroBenchmark benchmark) {
+
+    long operations = 0;
+    long batch = 1;
+    long value = 0;
+    long startTime = System.nanoTime();
+    long elapsedTime;
+
+    do {
+      for(long i = 0; i < batch; i++) value ^= benchmark.operation();
+      operations += batch;
+      elapsedTime = System.nanoTime() - startTime;
+      if(elapsedTime < iterationNanoseconds / 100) batch *= 2;
+    } while(elapsedTime < iterationNanoseconds);
+
+    sink ^= value;
+
+    return new long[] {operations, elapsedTime};
+  }
+
+  public Result run(MicroBenchmark benchmark) throws Exception {
+
+    benchmark.setUp();
+
+    for(int iteration = 0; iteration < warmupIterations; iteration++) runIteration(benchmark);
+
+    double[] operationsPerSecond = new double[iterations];
+    double[] bytesPerOperation = new double[iterations];
+
+    for(int iteration = 0; iteration < iterations; iteration++) {
+
+      long startBytes = getAllocatedBytes();
+      long[] outcome = runIteration(benchmark);
+      long allocatedBytes = getAllocatedBytes() - startBytes;
+
+      operationsPerSecond[iteration] = outcome[0] * 1e9 / outcome[1];
+      bytesPerOperation[iteration] = countsAllocations ? (double)allocatedBytes / outcome[0] : Double.NaN;
+
+    }
+
+    return new Result(benchmark.getName(), operationsPerSecond, bytesPerOperation);
+  }
+
+  public long getSink() {
+    return sink;
+  }
+
+  /**
+   *
+   * @param numVehicles the number of vehicles kept on the Crossroad
+   * @return one interval of a Crossroad holding about that many vehicles on the road, every one that leaves being
+   * replaced; the vehicles are placed behind the entries at the start, since arriving ones only enter when the entry
+   * of their origin is clear, and a fork of the initial Crossroad takes over every RESET_INTERVALS intervals
+   */
+  public static MicroBenchmark crossroadPassTime(int numVehicles) {
+
+    return new MicroBenchmark(String.format("Crossroad.passTime/%d", numVehicles)) {
+
+      private Crossroad initialCrossroad;
+      private Crossroad crossroad;
+      private int numIntervals;
+
+      public void setUp() {
+        initialCrossroad = Main.createEmptyCrossroad(numVehicles, Integer.MAX_VALUE - numVehicles, SEED);
+        initialCrossroad.placeVehicles(numVehicles);
+        crossroad = initialCrossroad.fork();
+      }
+
+      public long operation() {
+
+        if(++numIntervals == RESET_INTERVALS) {
+          crossroad = initialCrossroad.fork();
+          numIntervals = 0;
+        }
+
+        crossroad.passTime(1.);
+        return crossroad.getVehicleStore().size();
+      }
+
+    };
+
+  }
+
+  /**
+   *
+   * @return cars scattered around the center of the display, facing any direction
+   */
+  private static Car[] createCars() {
+
+    RandomStream stream = new RandomStream(SEED);
+    Car[] cars = new Car[NUM_SAMPLES];
+
+    for(int i = 0; i < NUM_SAMPLES; i++)
+      cars[i] = new Car(new Position(Main.PANEL_ALONG * stream.nextDouble(), Main.PANEL_ACROSS * stream.nextDouble()),
+          new Velocity(Car.MAX_VELOCITY_MAGNITUDE * stream.nextDouble(), 2 * Math.PI * stream.nextDouble()));
+
+    return cars;
+  }
+
+  /**
+   *
+   * @return the horizontal Lane of the Crossroad of the display
+   */
+  private static Lane createLane() {
+
+    Crossroad crossroad = Main.createEmptyCrossroad(0, 0, SEED);
+
+    return new Lane(new Size(Main.FRAME_ALONG + Crossroad.RANGE_OF_BUFFER * 2, 100 / Main.PIXELS_PER_METER),
+        new Position(0.5 * Main.FRAME_ALONG, crossroad.getPosition().getYPosition() + 50 / Main.PIXELS_PER_METER),
+        0, crossroad);
+  }
+
+  public static MicroBenchmark laneInRange() {
+
+    return new MicroBenchmark("Lane.inRange") {
+
+      private Lane lane;
+      private Car[] cars;
+      private int pointer;
+
+      public void setUp() {
+        lane = createLane();
+        cars = createCars();
+      }
+
+      public long operation() {
+        pointer = (pointer + 1) & (NUM_SAMPLES - 1);
+        return lane.inRange(cars[pointer], false) ? 1 : 0;
+      }
+
+    };
+
+  }
+
+  public static MicroBenchmark laneOnLane() {
+
+    return new MicroBenchmark("Lane.onLane") {
+
+      private Lane lane;
+      private Car[] cars;
+      private int pointer;
+
+      public void setUp() {
+        lane = createLane();
+        cars = createCars();
+      }
+
+      public long operation() {
+        pointer = (pointer + 1) & (NUM_SAMPLES - 1);
+        return lane.onLane(cars[pointer], true) ? 1 : 0;
+      }
+
+    };
+
+  }
+
+  public static MicroBenchmark bodyGetCornerPositions() {
+
+    return new MicroBenchmark("Body.getCornerPositions") {
+
+      private Car[] cars;
+      private int pointer;
+
+      public void setUp() {
+        cars = createCars();
+      }
+
+      public long operation() {
+        pointer = (pointer + 1) & (NUM_SAMPLES - 1);
+        return Double.doubleToRawLongBits(cars[pointer].getCornerPositions().get(0).getXPosition());
+      }
+
+    };
+
+  }
+
+  public static MicroBenchmark vehiclePassTime() {
+
+    return new MicroBenchmark("Vehicle.passTime") {
+
+      private Car[] cars;
+      private Acceleration acceleration;
+      private int pointer;
+
+      public void setUp() {
+        cars = createCars();
+        acceleration = new Acceleration(Car.MAX_ACCELERATION_MAGNITUDE, Math.PI / 4);
+      }
+
+      public long operation() {
+        pointer = (pointer + 1) & (NUM_SAMPLES - 1);
+        cars[pointer].passTime(1., acceleration);
+        return Double.doubleToRawLongBits(cars[pointer].getPosition().getXPosition());
+      }
+
+    };
+
+  }
+
+  public static MicroBenchmark pedestrianPassTime() {
+
+    return new MicroBenchmark("Pedestrian.passTime") {
+
+      private Pedestrian pedestrian;
+
+      public void setUp() {
+        pedestrian = new Pedestrian(new Position(10, 10), new Velocity(Pedestrian.SPEED, 0),
+            new Path(true, new Position(10, 10), new Position(50, 10), new Position(50, 50), new Position(10, 50)));
+      }
+
+      public long operation() {
+        pedestrian.passTime(1.);
+        return Double.doubleToRawLongBits(pedestrian.getPosition().getXPosition());
+      }
+
+    };
+
+  }
+
+  /**
+   *
+   * @param sprites true to draw through a SpriteAtlas, as the display does, false to draw with DisplayPanel.drawBody()
+   * @return drawing a car onto an off-screen image
+   */
+  public static MicroBenchmark drawBody(boolean sprites) {
+
+    return new MicroBenchmark(sprites ? "SpriteAtlas.draw" : "DisplayPanel.drawBody") {
+
+      private Car[] cars;
+      private BufferedImage carImage;
+      private Graphics2D graphics2D;
+      private SpriteAtlas spriteAtlas;
+      private int pointer;
+
+      public void setUp() throws IOException {
+
+        cars = createCars();
+        carImage = ImageIO.read(new File(Main.ASSETS_ADDRESS + DisplayPanel.CAR_IMAGE_FILE_NAME));
+        spriteAtlas = new SpriteAtlas(carImage, null);
+
+        BufferedImage image = new BufferedImage((int)Math.round(Main.PANEL_ALONG * Main.PIXELS_PER_METER),
+            (int)Math.round(Main.PANEL_ACROSS * Main.PIXELS_PER_METER), BufferedImage.TYPE_INT_RGB);
+        graphics2D = image.createGraphics();
+
+      }
+
+      public long operation() {
+
+        pointer = (pointer + 1) & (NUM_SAMPLES - 1);
+        Car car = cars[pointer];
+
+        if(sprites) {
+          graphics2D.setColor(car.getColor());
+          spriteAtlas.draw(graphics2D, car.getPosition().getXPosition(), car.getPosition().getYPosition(),
+              car.getVelocity().getOrientation(), car.getSize().getAlong(), car.getSize().getAcross());
+        } else {
+          DisplayPanel.drawBody(graphics2D, car, car.getColor(), carImage);
+        }
+
+        return pointer;
+      }
+
+    };
+
+  }
+
+  /**
+   *
+   * @return every benchmark, in the order they are run
+   */
+  public static ArrayList<MicroBenchmark> getBenchmarks() {
+
+    ArrayList<MicroBenchmark> benchmarks = new ArrayList<>();
+
+    for(int numVehicles: NUM_VEHICLES) benchmarks.add(crossroadPassTime(numVehicles));
+
+    benchmarks.add(laneInRange());
+    benchmarks.add(laneOnLane());
+    benchmarks.add(bodyGetCornerPositions());
+    benchmarks.add(vehiclePassTime());
+    benchmarks.add(pedestrianPassTime());
+    benchmarks.add(drawBody(false));
+    benchmarks.add(drawBody(true));
+
+    return benchmarks;
+  }
+
+  /**
+   * Usage: BenchmarkRunner [name pattern] [iterations] [iteration milliseconds] [results file name]
+   * Runs the benchmarks whose name matches the regular expression, all of them by default; the results, if asked for,
+   * are written into the output folder as comma separated values, to be compared before and after a change
+   */
+  public static void main(String[] args) throws Exception {
+
+    Pattern pattern = Pattern.compile(args.length > 0 ? args[0] : ".*");
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+    long iterationMilliseconds = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_ITERATION_MILLISECONDS;
+
+    BenchmarkRunner runner = new BenchmarkRunner(DEFAULT_WARMUP_ITERATIONS, iterations, iterationMilliseconds);
+    ArrayList<Result> results = new ArrayList<>();
+
+    for(MicroBenchmark benchmark: getBenchmarks()) if(pattern.matcher(benchmark.getName()).find()) {
+
+      Result result = runner.run(benchmark);
+      results.add(result);
+
+      SampleStatistics throughput = result.getThroughputStatistics();
+      SampleStatistics allocation = result.getAllocationStatistics();
+
+      System.out.println(String.format("%-24s %14.1f +- %12.1f OPERATIONS PER SECOND %12.1f BYTES PER OPERATION",
+          result.getName(), throughput.getMean(), throughput.getConfidenceHalfWidth(), allocation.getMean()));
+
+    }
+
+    if(args.length > 3) {
+      try(PrintStream output = new PrintStream(Main.OUTPUT_ADDRESS + args[3])) {
+        output.println("BENCHMARK,OPERATIONS PER SECOND,CONFIDENCE HALF WIDTH,BYTES PER OPERATION");
+        for(Result result: results)
+          output.println(String.format("%s,%.1f,%.1f,%.1f", result.getName(), result.getThroughputStatistics().getMean(),
+              result.getThroughputStatistics().getConfidenceHalfWidth(), result.getAllocationStatistics().getMean()));
+      }
+    }
+
+    System.out.println(String.format("SINK: %d", runner.getSink()));
+
+  }
+
+}
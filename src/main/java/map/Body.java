@@ -6,8 +6,8 @@ import java.util.ArrayList;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 5.3,
-    lastModified = "05/16/2020",
+    currentRevision = 5.4,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public abstract class Body {
@@ -45,12 +45,23 @@ public abstract class Body {
    * @return the four Position of the corners of this Body in a random order.
    */
   public ArrayList<Position> getCornerPositions() {
+    return getCornerPositions(position, velocity.getOrientation(), size);
+  }
+
+  /**
+   *
+   * @param position the center of the rectangle
+   * @param orientation the direction the rectangle is facing
+   * @param size the size of the rectangle
+   * @return the four Position of the corners of the rectangle in a random order.
+   */
+  public static ArrayList<Position> getCornerPositions(Position position, double orientation, Size size) {
 
     ArrayList<Position> cornerPositions = new ArrayList<>();
 
     double halfDiagonal = Math.sqrt(Math.pow(size.getAlong(), 2) + Math.pow(size.getAcross(), 2)) / 2;
-    double angle1 = velocity.getOrientation() + Math.atan2(size.getAcross(), size.getAlong());
-    double angle2 = velocity.getOrientation() - Math.atan2(size.getAcross(), size.getAlong());
+    double angle1 = orientation + Math.atan2(size.getAcross(), size.getAlong());
+    double angle2 = orientation - Math.atan2(size.getAcross(), size.getAlong());
 
     cornerPositions.add(new Position(
         position.getXPosition() + halfDiagonal * Math.cos(angle1),
@@ -5,8 +5,8 @@ import java.awt.*;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 7,
-    lastModified = "05/09/2020",
+    currentRevision = 7.2,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Car extends Vehicle {
@@ -44,9 +44,28 @@ public class Car extends Vehicle {
    * @return the Color object used by Board to paint the cars
    */
   public Color getColor() {
+    return new Color(getColorRGB(this.getVelocity().getMagnitude()));
+  }
+
+  /**
+   *
+   * @param speed the speed of the car
+   * @return the color of a car at that speed, as getColor() would, in the sRGB form of Color.getRGB()
+   */
+  @Override
+  public int getColorRGB(double speed) {
+    return colorRGBFromSpeed(speed);
+  }
+
+  /**
+   *
+   * @param speed the speed of a car
+   * @return the color of a car at that speed, in the sRGB form of Color.getRGB()
+   */
+  public static int colorRGBFromSpeed(double speed) {
 
     double slowColorWeight;
-    double fastColorWeight = this.getVelocity().getMagnitude() / MAX_VELOCITY_MAGNITUDE;
+    double fastColorWeight = speed / MAX_VELOCITY_MAGNITUDE;
 
     if(fastColorWeight > 1) {
       fastColorWeight = 1;
@@ -56,9 +75,10 @@ public class Car extends Vehicle {
 
     slowColorWeight = 1 - fastColorWeight;
 
-    return new Color((int)Math.round(Main.SLOW_VEHICLE_COLOR.getRed() * slowColorWeight + Main.FAST_VEHICLE_COLOR.getRed() * fastColorWeight),
-        (int)Math.round(Main.SLOW_VEHICLE_COLOR.getGreen() * slowColorWeight + Main.FAST_VEHICLE_COLOR.getGreen() * fastColorWeight),
-        (int)Math.round(Main.SLOW_VEHICLE_COLOR.getBlue() * slowColorWeight + Main.FAST_VEHICLE_COLOR.getBlue() * fastColorWeight));
+    return 0xFF << 24
+        | (int)Math.round(Main.SLOW_VEHICLE_COLOR.getRed() * slowColorWeight + Main.FAST_VEHICLE_COLOR.getRed() * fastColorWeight) << 16
+        | (int)Math.round(Main.SLOW_VEHICLE_COLOR.getGreen() * slowColorWeight + Main.FAST_VEHICLE_COLOR.getGreen() * fastColorWeight) << 8
+        | (int)Math.round(Main.SLOW_VEHICLE_COLOR.getBlue() * slowColorWeight + Main.FAST_VEHICLE_COLOR.getBlue() * fastColorWeight);
   }
 
   public String toString() {
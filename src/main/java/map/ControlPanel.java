@@ -7,22 +7,32 @@ import java.util.Hashtable;
 @ClassPreamble(
     author = "William Wu",
     date = "04/23/2020",
-    currentRevision = 3.1,
-    lastModified = "05/10/2020",
+    currentRevision = 3.3,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class ControlPanel extends JPanel {
 
   private final JSlider slider;
   private final JTextField textField;
+  private final JCheckBox maxSpeedCheckBox;
+  private final JLabel timelineLabel;
+  private final JSlider timeline;
 
   private int rawSpeed;
+  private boolean updatingTimeline; // set while the timeline follows the replay, so that it does not seek
 
   public ControlPanel() {
 
     slider = new JSlider(JSlider.VERTICAL, -40 ,40, 0);
     textField = new JTextField("0");
     JLabel label = new JLabel("PLAY SPEED");
+    maxSpeedCheckBox = new JCheckBox("MAX SPEED");
+    timelineLabel = new JLabel("TIMELINE");
+    timeline = new JSlider(JSlider.HORIZONTAL, 0, 0, 0);
+
+    timelineLabel.setVisible(false);
+    timeline.setVisible(false);
 
     slider.setMajorTickSpacing(1);
 
@@ -54,6 +64,16 @@ public class ControlPanel extends JPanel {
       Frame.factor = convertToPlaySpeed(rawSpeed);
     });
 
+    maxSpeedCheckBox.addActionListener(event -> {
+      Frame.maxSpeed = maxSpeedCheckBox.isSelected();
+      slider.setEnabled(!Frame.maxSpeed);
+      textField.setEnabled(!Frame.maxSpeed);
+    });
+
+    timeline.addChangeListener(event -> {
+      if(!updatingTimeline) Frame.seekTick = timeline.getValue();
+    });
+
     setLayout(new GridBagLayout());
     GridBagConstraints gridBagConstraints = new GridBagConstraints();
 
@@ -78,6 +98,61 @@ public class ControlPanel extends JPanel {
     gridBagConstraints.gridy = 2;
     add(slider, gridBagConstraints);
 
+    gridBagConstraints.fill = GridBagConstraints.NONE;
+    gridBagConstraints.weightx = 0;
+    gridBagConstraints.weighty = 0;
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 3;
+    add(maxSpeedCheckBox, gridBagConstraints);
+
+    gridBagConstraints.fill = GridBagConstraints.NONE;
+    gridBagConstraints.weightx = 0;
+    gridBagConstraints.weighty = 0;
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 4;
+    add(timelineLabel, gridBagConstraints);
+
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.weightx = 1;
+    gridBagConstraints.weighty = 0;
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 5;
+    add(timeline, gridBagConstraints);
+
+  }
+
+  /**
+   * shows the timeline of a replay, which seeks to the tick it is dragged to
+   *
+   * @param firstTick the tick count of the first tick of the replay
+   * @param lastTick the tick count of the last tick of the replay
+   */
+  public void enableTimeline(long firstTick, long lastTick) {
+
+    updatingTimeline = true;
+    timeline.setMinimum((int)firstTick);
+    timeline.setMaximum((int)lastTick);
+    timeline.setValue((int)firstTick);
+    updatingTimeline = false;
+
+    timelineLabel.setVisible(true);
+    timeline.setVisible(true);
+
+  }
+
+  /**
+   * moves the timeline to the tick displayed, unless it is being dragged
+   *
+   * @param tick the tick count of the tick displayed
+   */
+  public void setTimelineTick(long tick) {
+
+    if(timeline.getValueIsAdjusting()) return;
+
+    updatingTimeline = true;
+    timeline.setValue((int)tick);
+    updatingTimeline = false;
+
   }
 
   /**
@@ -1,39 +1,139 @@
 package map;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 @ClassPreamble (
     author = "Daniel Chen",
     date = "02/25/2020",
-    currentRevision = 13.3,
-    lastModified = "05/12/2020",
+    currentRevision = 31,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Crossroad {
 
+  /**
+   * how far outside the panel vehicles enter, and how far from that point the last vehicle in must be for the next one
+   * to enter
+   */
   public static final double RANGE_OF_SPAWN = 12.;
   public static final double RANGE_OF_INTEREST = 8.;
   public static final double RANGE_OF_BUFFER = 100.;
 
+  /**
+   * the number of vehicles from which the accelerations are computed on the fork/join pool
+   */
+  public static final int PARALLEL_THRESHOLD = 512;
+
+  /**
+   * the number of vehicles below which a fork/join task computes the accelerations itself instead of splitting
+   */
+  public static final int PARALLEL_GRAIN = 128;
+
+  /**
+   * the range of the initial speeds of the vehicles, in meters per second, unless set otherwise
+   */
+  public static final double DEFAULT_MIN_SPEED = 5;
+  public static final double DEFAULT_MAX_SPEED = 15;
+
+  // the turning movements, in the order of the turn ratios
+
+  public static final int LEFT = 0;
+  public static final int STRAIGHT = 1;
+  public static final int RIGHT = 2;
+
+  public static final int STATE_MAGIC = 0x43524f53; // "CROS"
+  public static final int STATE_VERSION = 6;
+
   private final double laneWidth;
   private final Position position;
   private final Lane[] lanes;
-  private final ArrayList<Vehicle> vehicles;
+  private final VehicleStore vehicles;
+  private final ArrayList<Vehicle> vehicleViews;
+  private final ArrayDeque<Vehicle> freeViews; // views of the vehicles that have left the panel, reused by new ones
   private final ArrayList<Obstacle> obstacles;
-  private final ArrayList<Integer> states; // -1 pre-turn 0 turning 1 post-turn
-  private final int[] spawns;
+  private final LaneIndex[] laneIndices; // vehicles on or in range of each lane, sorted along the lane
+  private final Crossroad[] neighbours; // the Crossroad each destination leads to, null at the border of a RoadNetwork
+  private final ArrayList<ArrayList<Vehicle>> outboxes; // vehicles handed over to each neighbour during the last interval
+  private int numBoundaries; // the number of origins without a neighbour, where new vehicles come from
+  private final long seed;
+  private RandomStream arrivalStream; // which origin the next vehicle comes from
+  private RandomStream routingStream; // which destination it goes to
+  private RandomStream speedStream; // its initial speed
+  private RandomStream mixStream; // its type, when there is a vehicle mix
+  private RandomStream scheduleStream; // when it comes, when there is an arrival schedule
+  private ArrivalSchedule schedule; // null while each vehicle leaving is replaced by a new one
+  private final ArrivalScheduler arrivals; // the vehicles yet to arrive, and those waiting to enter
+  private double minSpeed;
+  private double maxSpeed;
+  private double[] arrivalWeights; // the relative arrival rate of each origin, null for uniform arrivals
+  private final double[] originWeights; // the arrival weights of the origins new vehicles may come from, on each draw
+  private double[][] turnRatios; // the share of left, straight and right turns of each origin, null for uniform routes
+  private double[] mixShares; // the share, length and width of each type of vehicle, null for cars only
+  private double[] mixAlongs;
+  private double[] mixAcrosses;
   private final int initNumVehicles;
   private final int totalNumVehicles;
   private int numVehicles;
+  private int numExited;
+  private int numTurning;
+  private double timeElapsed;
+  private CrossroadMetrics metrics; // null unless metrics are recorded
+  private TickProfiler profiler; // null unless the phases of the ticks are timed
+  private long numLaneTests;
+  private final int[] queueLengths; // the queue of each approach, counted on every interval while metrics are recorded
+  private int parallelThreshold;
+  private ForkJoinPool pool;
+  private double[] oldXPositions; // positions before the apply phase, used to update the indices of the Lanes
+  private double[] oldYPositions;
 
   public Crossroad(Position position, double laneWidth, int initNumVehicles, int totalNumVehicles) {
+    this(position, laneWidth, initNumVehicles, totalNumVehicles, RandomStream.randomSeed());
+  }
+
+  /**
+   *
+   * @param position the center of the crossroad
+   * @param laneWidth the width of each lane
+   * @param initNumVehicles the number of vehicles present at the start
+   * @param totalNumVehicles the number of vehicles to be spawned in total
+   * @param seed the seed from which every random draw of this Crossroad is derived; the same seed gives the same run
+   */
+  public Crossroad(Position position, double laneWidth, int initNumVehicles, int totalNumVehicles, long seed) {
 
     this.position = position;
+    this.seed = seed;
+
+    RandomStream rootStream = new RandomStream(seed);
+
+    arrivalStream = rootStream.split();
+    routingStream = rootStream.split();
+    speedStream = rootStream.split();
+    mixStream = rootStream.split();
+    scheduleStream = rootStream.split();
+
+    minSpeed = DEFAULT_MIN_SPEED;
+    maxSpeed = DEFAULT_MAX_SPEED;
+
     this.laneWidth = laneWidth;
     this.initNumVehicles = initNumVehicles;
     this.totalNumVehicles = totalNumVehicles;
     this.numVehicles = 0;
+    this.numExited = 0;
+    this.numTurning = 0;
+    this.timeElapsed = 0.;
+    this.parallelThreshold = PARALLEL_THRESHOLD;
+    this.pool = ForkJoinPool.commonPool();
 
     lanes = new Lane[4];
 
@@ -50,11 +150,25 @@ public class Crossroad {
         new Position(position.getXPosition() + 0.5 * laneWidth, 0.5 * Main.FRAME_ACROSS),
         Math.PI * 3 / 2, this);
 
-    vehicles = new ArrayList<>();
+    vehicles = new VehicleStore();
+    vehicleViews = new ArrayList<>();
+    freeViews = new ArrayDeque<>();
     obstacles = new ArrayList<>();
-    states = new ArrayList<>();
 
-    spawns = new int[4];
+    laneIndices = new LaneIndex[4];
+    for(int i = 0; i < 4; i++) laneIndices[i] = new LaneIndex(i % 2 == 0);
+
+    queueLengths = new int[4];
+    originWeights = new double[4];
+    arrivals = new ArrivalScheduler();
+
+    neighbours = new Crossroad[4];
+    outboxes = new ArrayList<>();
+    for(int i = 0; i < 4; i++) outboxes.add(new ArrayList<>());
+    numBoundaries = 4;
+
+    oldXPositions = new double[0];
+    oldYPositions = new double[0];
 
   }
 
@@ -66,305 +180,1474 @@ public class Crossroad {
     return totalNumVehicles;
   }
 
+  public long getSeed() {
+    return seed;
+  }
+
   /**
    *
-   * @param origin which of the four origins the vehicle is coming from
-   * @return the spawn position of the vehicle, depends on the origin and the relative position of the vehicle to others
+   * @return the number of vehicles that have left the panel without a neighbour to take them over
    */
-  public Position getSpawnPosition(int origin) {
-
-    double xPosition = 0;
-    double yPosition = 0;
+  public int getNumExited() {
+    return numExited;
+  }
 
-    switch(origin) {
-      case 0:
-        xPosition = Main.FRAME_ALONG + Math.min(initNumVehicles, ++spawns[0]) * RANGE_OF_SPAWN;
-        yPosition = position.getYPosition() - laneWidth * 0.5;
-        break;
-      case 1:
-        xPosition = position.getXPosition() + laneWidth * 0.5;
-        yPosition = Main.FRAME_ACROSS + Math.min(initNumVehicles, ++spawns[1]) * RANGE_OF_SPAWN;
-        break;
-      case 2:
-        xPosition = - Math.min(initNumVehicles, ++spawns[2]) * RANGE_OF_SPAWN;
-        yPosition = position.getYPosition() + laneWidth * 0.5;
-        break;
-      case 3:
-        xPosition = position.getXPosition() - laneWidth * 0.5;
-        yPosition = - Math.min(initNumVehicles, ++spawns[3]) * RANGE_OF_SPAWN;
-        break;
-    }
+  /**
+   *
+   * @return the simulated time, in seconds
+   */
+  public double getTimeElapsed() {
+    return timeElapsed;
+  }
 
-    return new Position(xPosition, yPosition);
+  public CrossroadMetrics getMetrics() {
+    return metrics;
   }
 
   /**
-   * Spawn a car going from a random direction to a random direction
+   *
+   * @param metrics where the vehicles leaving the Crossroad and the queues of every interval are recorded from now on,
+   * or null not to record anything
    */
-  public void spawnVehicle(String type) {
-    spawnVehicle(type, (int)(Math.random() * 4), (int)(Math.random() * 4));
+  public void setMetrics(CrossroadMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  public double getLaneWidth() {
+    return laneWidth;
   }
 
   /**
-   * Create a new Vehicle in this Crossroad with origin and destination set. The origin could not be the same as the destination
    *
-   * @param origin 0, 1, 2, or 3
-   * @param destination 0, 1, 2, or 3
+   * @param minSpeed the lowest initial speed of a new vehicle, in meters per second
+   * @param maxSpeed the highest initial speed of a new vehicle, in meters per second
    */
-  public void spawnVehicle(String type, int origin, int destination) {
-
-    if(numVehicles++ >= totalNumVehicles) return;
+  public void setSpeedRange(double minSpeed, double maxSpeed) {
+    this.minSpeed = minSpeed;
+    this.maxSpeed = maxSpeed;
+  }
 
-    if(origin == destination) destination = (origin + 2) % 4;
+  public double getMinSpeed() {
+    return minSpeed;
+  }
 
-    Vehicle vehicle = null;
+  public double getMaxSpeed() {
+    return maxSpeed;
+  }
 
-    if("map.Car".equals(type)) {
+  /**
+   *
+   * @param arrivalWeights how likely a new vehicle is to come from each origin, relative to the others, or null for
+   * all origins to be as likely
+   */
+  public void setArrivalWeights(double[] arrivalWeights) {
+    this.arrivalWeights = arrivalWeights == null ? null : arrivalWeights.clone();
+  }
 
-      vehicle = new Car(getSpawnPosition(origin),
-          new Velocity(5 + 10 * Math.random(), Math.PI * ((origin + 2) % 4) / 2));
-      vehicle.setOrigin(origin);
-      vehicle.setDestination(destination);
+  /**
+   *
+   * @param turnRatios for each origin, the shares of the vehicles turning LEFT, going STRAIGHT and turning RIGHT, or
+   * null for every destination but the origin to be drawn as likely, going straight when the origin is drawn
+   */
+  public void setTurnRatios(double[][] turnRatios) {
 
+    if(turnRatios == null) {
+      this.turnRatios = null;
+      return;
     }
 
-    vehicles.add(vehicle);
-    states.add(-1);
+    this.turnRatios = new double[4][];
+    for(int origin = 0; origin < 4; origin++) this.turnRatios[origin] = turnRatios[origin].clone();
 
   }
 
-  public ArrayList<Vehicle> getVehicles() {
-    return vehicles;
+  /**
+   *
+   * @param shares the share of each type of vehicle, or null for cars of the default size only
+   * @param alongs the length of each type of vehicle
+   * @param acrosses the width of each type of vehicle
+   */
+  public void setVehicleMix(double[] shares, double[] alongs, double[] acrosses) {
+    mixShares = shares == null ? null : shares.clone();
+    mixAlongs = shares == null ? null : alongs.clone();
+    mixAcrosses = shares == null ? null : acrosses.clone();
   }
 
-  public void addObstacle(Obstacle obstacle) {
-    obstacles.add(obstacle);
-  }
+  /**
+   * Lets the vehicles come at the times drawn from a schedule instead of replacing each vehicle leaving by a new one;
+   * the scheduled vehicles still count towards the total number of vehicles, and the first arrivals are drawn from
+   * the time elapsed so far
+   *
+   * @param schedule the arrival process of every origin; only the origins without a neighbour take it
+   */
+  public void setArrivalSchedule(ArrivalSchedule schedule) {
+
+    this.schedule = schedule;
+
+    for(int origin = 0; origin < 4; origin++) if(neighbours[origin] == null)
+      scheduleArrival(schedule.nextArrival(origin, timeElapsed, scheduleStream), origin);
 
-  public ArrayList<Obstacle> getObstacles() {
-    return obstacles;
   }
 
   /**
-   *
-   * @param position the position to be examined
-   * @return whether or not the position is in the display border
+   * schedules the next arrival of a recurring arrival process, unless there is none before the end of the schedule
    */
-  public boolean inBorder(Position position) {
+  private void scheduleArrival(double time, int origin) {
+    if(time != Double.POSITIVE_INFINITY) arrivals.schedule(time, origin, true);
+  }
 
-    return position.getXPosition() >= 0
-        && position.getXPosition() <= Main.PANEL_ALONG
-        && position.getYPosition() >= 0
-        && position.getYPosition() <= Main.PANEL_ACROSS;
+  public ArrivalSchedule getArrivalSchedule() {
+    return schedule;
+  }
 
+  public TickProfiler getProfiler() {
+    return profiler;
   }
 
   /**
    *
-   * @param index the index of the vehicle
-   * @return whether or not the vehicle should be eliminated
+   * @param profiler the TickProfiler the phases of passTime() are marked on, between its beginTick() and endTick(),
+   * or null
    */
-  public boolean isPresent(int index) {
-    return states.get(index) != 1 || inBorder(vehicles.get(index).getPosition());
+  public void setProfiler(TickProfiler profiler) {
+    this.profiler = profiler;
   }
 
   /**
-   * remove those vehicles that are no longer meaningful
+   *
+   * @return the number of times a vehicle has been tested against a Lane, to keep the indices of the Lanes up to date
    */
-  public void cleanVehicles() {
+  public long getNumLaneTests() {
+    return numLaneTests;
+  }
 
-    int pointer = 0;
-    int count = 0;
+  public int getParallelThreshold() {
+    return parallelThreshold;
+  }
 
-    while(pointer < vehicles.size()) if(!isPresent(pointer++)) {
+  /**
+   *
+   * @param parallelThreshold the number of vehicles from which the accelerations are computed on the fork/join pool;
+   * Integer.MAX_VALUE keeps every tick on the calling thread
+   */
+  public void setParallelThreshold(int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
 
-      vehicles.remove(--pointer);
-      states.remove(pointer);
+  /**
+   * connects this Crossroad to the next one of a RoadNetwork: the vehicles leaving the panel towards that direction are
+   * handed over to the neighbour instead of being eliminated, and no new vehicle comes from that direction any more
+   *
+   * @param direction 0, 1, 2, or 3, as the destinations
+   * @param neighbour the Crossroad whose panel is next to this one in that direction, or null
+   */
+  public void setNeighbour(int direction, Crossroad neighbour) {
 
-      count++;
+    neighbours[direction] = neighbour;
 
-    }
+    numBoundaries = 0;
+    for(Crossroad crossroad: neighbours) if(crossroad == null) numBoundaries++;
 
-    while(count-- > 0) spawnVehicle("map.Car");
+  }
 
+  public Crossroad getNeighbour(int direction) {
+    return neighbours[direction];
   }
 
   /**
    *
-   * @param position the position of the point
-   * @return whether or not the position of the point is in the center of the crossroad
+   * @param direction 0, 1, 2, or 3, as the destinations
+   * @return the vehicles that left the panel towards the neighbour in that direction during the last interval
    */
-  public boolean inCenter(Position position) {
+  public ArrayList<Vehicle> getOutbox(int direction) {
+    return outboxes.get(direction);
+  }
 
-    return (this.position.getXPosition() - this.laneWidth <= position.getXPosition())
-        && (this.position.getXPosition() + this.laneWidth >= position.getXPosition())
-        && (this.position.getYPosition() - this.laneWidth <= position.getYPosition())
-        && (this.position.getYPosition() + this.laneWidth >= position.getYPosition());
+  public ArrivalScheduler getArrivals() {
+    return arrivals;
+  }
 
+  /**
+   *
+   * @param origin which of the four origins the vehicle is coming from
+   * @return where the vehicles from the origin enter, just outside the panel
+   */
+  public Position getSpawnPosition(int origin) {
+    return getSpawnPosition(origin, 0);
   }
 
   /**
    *
-   * @param index the index of the vehicle of interest
-   * @return whether or not that vehicle is in the center of the crossroad (is turning)
+   * @param origin which of the four origins the vehicle is coming from
+   * @param distance how far behind the entry of the origin the vehicle is
+   * @return the position of the vehicle on the Lane of the origin, outside the panel
    */
-  public boolean isTurning(int index) {
-    return inCenter(vehicles.get(index).getPosition());
+  public Position getSpawnPosition(int origin, double distance) {
+    return new Position(getSpawnXPosition(origin, distance), getSpawnYPosition(origin, distance));
   }
 
-  public int getLaneNum(int index) {
+  /**
+   *
+   * @param origin which of the four origins the vehicle is coming from
+   * @param distance how far behind the entry of the origin the vehicle is
+   * @return the horizontal position of the vehicle, see getSpawnPosition()
+   */
+  public double getSpawnXPosition(int origin, double distance) {
 
-    if(states.get(index) == 1) return vehicles.get(index).getDestination();
-    if(states.get(index) == -1) return (vehicles.get(index).getOrigin() + 2) % 4;
+    switch(origin) {
+      case 0:
+        return Main.FRAME_ALONG + RANGE_OF_SPAWN + distance;
+      case 1:
+        return position.getXPosition() + laneWidth * 0.5;
+      case 2:
+        return - RANGE_OF_SPAWN - distance;
+      default:
+        return position.getXPosition() - laneWidth * 0.5;
+    }
 
-    return -1;
   }
 
   /**
    *
-   * @param origin the origin of the vehicle of interest
-   * @return a virtual block in the road to prevent multiple cars from using the turning point at the same time.
+   * @param origin which of the four origins the vehicle is coming from
+   * @param distance how far behind the entry of the origin the vehicle is
+   * @return the vertical position of the vehicle, see getSpawnPosition()
    */
-  public double virtualBlock(int origin) {
+  public double getSpawnYPosition(int origin, double distance) {
 
     switch(origin) {
       case 0:
-        return position.getXPosition() + laneWidth * 1.5;
+        return position.getYPosition() - laneWidth * 0.5;
       case 1:
-        return position.getYPosition() + laneWidth * 1.5;
+        return Main.FRAME_ACROSS + RANGE_OF_SPAWN + distance;
       case 2:
-        return position.getXPosition() - laneWidth * 1.5;
-      case 3:
-        return position.getYPosition() - laneWidth * 1.5;
+        return position.getYPosition() + laneWidth * 0.5;
       default:
-        return -1;
+        return - RANGE_OF_SPAWN - distance;
     }
 
   }
 
-  public Acceleration getAccelerationStraightFor(int index) {
+  /**
+   * Spawn a car going from a random direction to a random direction: it arrives now, and enters on the next interval
+   * if the entry of its origin is clear
+   */
+  public void spawnVehicle(String type) {
 
-    int laneNum = getLaneNum(index);
-    boolean isAlong = laneNum % 2 == 0; // true: horizontal, false: vertical
-    Vehicle vehicle = vehicles.get(index);
+    if(!"map.Car".equals(type)) return;
 
-    ArrayList<Double> allPositions = new ArrayList<>();
+    arrivals.schedule(timeElapsed, drawOrigin(), false);
 
-    boolean centerOccupied = false;
+  }
 
-    for(int i = 0; i < states.size(); i++) {
+  /**
+   *
+   * @param weights the weights of the choices
+   * @param random a value uniformly distributed in [0, 1)
+   * @return the choice the value falls on, the weights being laid end to end
+   */
+  private static int drawWeighted(double[] weights, double random) {
 
-      if(getLaneNum(i) == laneNum || lanes[laneNum].inRange(vehicles.get(i), false))
-        allPositions.add(vehicles.get(i).getPosition().getPosition(isAlong));
+    double total = 0;
+    for(double weight: weights) total += weight;
 
-      if(states.get(i) == 0) centerOccupied = true;
+    double target = random * total;
 
+    for(int choice = 0; choice < weights.length - 1; choice++) {
+      target -= weights[choice];
+      if(target < 0) return choice;
     }
 
-    if(centerOccupied) allPositions.add(virtualBlock(vehicle.getOrigin()));
+    return weights.length - 1;
+  }
 
-    double absolutePosition = vehicle.getPosition().getPosition(isAlong);
+  /**
+   * draws the origin of a new vehicle among the origins without a neighbour,
+   * or among all four if the Crossroad is alone or in the middle of a RoadNetwork
+   */
+  private int drawOrigin() {
 
-    Collections.sort(allPositions);
+    if(arrivalWeights != null) {
 
-    int relativeIndex = allPositions.indexOf(absolutePosition);
+      double total = 0;
 
-    double frontGap;
-    double backGap;
+      for(int origin = 0; origin < 4; origin++) {
+        originWeights[origin] = numBoundaries == 0 || neighbours[origin] == null ? arrivalWeights[origin] : 0;
+        total += originWeights[origin];
+      }
+
+      if(total > 0) return drawWeighted(originWeights, arrivalStream.nextDouble());
 
-    if(laneNum > 1) {
-      frontGap = absolutePosition - (relativeIndex > 0 ? allPositions.get(relativeIndex - 1) : -Double.MAX_VALUE);
-      backGap = (relativeIndex < allPositions.size() -1 ? allPositions.get(relativeIndex + 1) : Double.MAX_VALUE / 2) - absolutePosition;
-    } else {
-      frontGap = (relativeIndex < allPositions.size() -1 ? allPositions.get(relativeIndex + 1) : Double.MAX_VALUE / 2) - absolutePosition;
-      backGap = absolutePosition - (relativeIndex > 0 ? allPositions.get(relativeIndex - 1) : -Double.MAX_VALUE / 2);
     }
 
-    if("map.Car".equals(vehicle.getClass().getName())) {
+    if(numBoundaries == 0 || numBoundaries == 4) return arrivalStream.nextInt(4);
 
-      // If there is no vehicle in front then accelerate to max speed if possible
+    int rank = arrivalStream.nextInt(numBoundaries);
 
-      if(frontGap > RANGE_OF_INTEREST) {
-        if (vehicle.getVelocity().getMagnitude() < Car.MAX_VELOCITY_MAGNITUDE) {
-          return new Acceleration(Car.MAX_ACCELERATION_MAGNITUDE, vehicle.getVelocity().getOrientation());
-        } else {
-          return new Acceleration(0, 0);
-        }
-      }
+    for(int origin = 0; ; origin++) if(neighbours[origin] == null && rank-- == 0) return origin;
+  }
+
+  /**
+   * draws the destination of a vehicle from the turn ratios of its origin, if any
+   *
+   * @param origin the origin of the vehicle
+   * @return the destination; without turn ratios, it may be the origin, which stands for going straight
+   */
+  private int drawDestination(int origin) {
 
-      // Given that there is a vehicle in front, decelerate if there is no vehicle at back and if possible
+    if(turnRatios == null) return routingStream.nextInt(4);
 
-      if(backGap > RANGE_OF_INTEREST) {
-        if(vehicle.getVelocity().getMagnitude() > Car.MAX_ACCELERATION_MAGNITUDE * Main.INTERVAL) {
-          return new Acceleration(Car.MAX_ACCELERATION_MAGNITUDE, Math.PI + vehicle.getVelocity().getOrientation());
-        } else {
-          return new Acceleration(0, 0);
-        }
-      }
+    switch(drawWeighted(turnRatios[origin], routingStream.nextDouble())) {
+      case LEFT:
+        return (origin + 1) % 4;
+      case RIGHT:
+        return (origin + 3) % 4;
+      default:
+        return (origin + 2) % 4;
+    }
 
-      // Given that there are vehicles both in front and at back, balance
+  }
 
-      if(backGap > frontGap) {
-        if(vehicle.getVelocity().getMagnitude() > Car.MAX_ACCELERATION_MAGNITUDE * Main.INTERVAL) {
-          return new Acceleration(Car.MAX_ACCELERATION_MAGNITUDE, Math.PI + vehicle.getVelocity().getOrientation());
-        } else {
-          return new Acceleration(0, 0);
-        }
-      } else {
-        if (vehicle.getVelocity().getMagnitude() < Car.MAX_VELOCITY_MAGNITUDE) {
-          return new Acceleration(Car.MAX_ACCELERATION_MAGNITUDE, vehicle.getVelocity().getOrientation());
-        } else {
-          return new Acceleration(0, 0);
-        }
-      }
+  /**
+   * Create a new Vehicle in this Crossroad with origin and destination set. The origin could not be the same as the destination
+   * The vehicle arrives now and waits in the queue of its origin until the entry is clear; arrivals beyond the total
+   * number of vehicles are ignored
+   *
+   * @param origin 0, 1, 2, or 3
+   * @param destination 0, 1, 2, or 3
+   */
+  public void spawnVehicle(String type, int origin, int destination) {
 
-    }
+    if(!"map.Car".equals(type) || numVehicles >= totalNumVehicles) return;
+
+    if(origin == destination) destination = (origin + 2) % 4;
+
+    arrivals.enqueue(origin, numVehicles++, timeElapsed, destination);
 
-    return null;
   }
 
-  public Acceleration getAccelerationTurningFor(int index) {
+  /**
+   * Puts vehicles on the road at once, lined up RANGE_OF_SPAWN apart behind the entries of their origins, instead of
+   * letting them wait for the entries to clear one by one; used to start with a given number of vehicles on the road
+   *
+   * @param numVehicles the number of vehicles to be placed, within the total number of vehicles
+   */
+  public void placeVehicles(int numVehicles) {
+
+    int[] numPlaced = new int[4];
 
-    Vehicle vehicle = vehicles.get(index);
+    for(int i = 0; i < numVehicles && this.numVehicles < totalNumVehicles; i++) {
 
-    if((vehicle.getOrigin() + vehicle.getDestination()) % 2 == 0) return new Acceleration(0, 0);
+      int origin = drawOrigin();
+
+      spawnVehicle("map.Car", origin, drawDestination(origin));
+      enterVehicle(origin, numPlaced[origin]++ * RANGE_OF_SPAWN);
 
-    if((vehicle.getDestination() - vehicle.getOrigin() - 1) % 4 == 0) {
-      return new Acceleration(Math.pow(vehicle.getVelocity().getMagnitude(), 2) / (laneWidth * 1.5),
-          vehicle.getVelocity().getOrientation() - Math.PI / 2);
     }
 
-    if((vehicle.getDestination() - vehicle.getOrigin() + 1) % 4 == 0) {
-      return new Acceleration(Math.pow(vehicle.getVelocity().getMagnitude(), 2) / (laneWidth * 0.5),
-          vehicle.getVelocity().getOrientation() + Math.PI / 2);
+  }
+
+  /**
+   * takes the events of the arrivals that have come, letting their vehicles wait at their origins, then lets the
+   * vehicle at the head of each queue enter if the entry of its Lane is clear
+   */
+  private void admitVehicles() {
+
+    while(arrivals.peekTime() <= timeElapsed) {
+
+      double time = arrivals.peekTime();
+      int origin = arrivals.peekOrigin();
+      boolean recurring = arrivals.peekRecurring();
+
+      arrivals.poll();
+
+      if(numVehicles >= totalNumVehicles) continue;
+
+      if(recurring) scheduleArrival(schedule.nextArrival(origin, time, scheduleStream), origin);
+
+      int destination = drawDestination(origin);
+      if(origin == destination) destination = (origin + 2) % 4;
+
+      arrivals.enqueue(origin, numVehicles++, time, destination);
+
     }
 
-    return null;
+    for(int origin = 0; origin < 4; origin++) if(arrivals.getQueueLength(origin) > 0 && !isEntryBlocked(origin))
+      enterVehicle(origin, 0);
+
   }
 
-  public Acceleration getAccelerationFor(int index) {
+  /**
+   *
+   * @param origin an origin
+   * @return whether a vehicle is too close to the entry of the origin for another one to enter
+   */
+  private boolean isEntryBlocked(int origin) {
 
-    if(isTurning(index)) {
-      states.set(index, 0);
-      return this.getAccelerationTurningFor(index);
+    LaneIndex laneIndex = laneIndices[(origin + 2) % 4];
+
+    double key = laneIndex.isAlong() ? getSpawnXPosition(origin, 0) : getSpawnYPosition(origin, 0);
+    int rank = laneIndex.lowerBound(key - RANGE_OF_SPAWN);
+
+    return rank < laneIndex.size() && laneIndex.getKey(rank) < key + RANGE_OF_SPAWN;
+  }
+
+  /**
+   * creates the vehicle at the head of the queue of an origin on the entry of the origin; the time it waited counts as
+   * stopped
+   * The view of a vehicle that has left the panel is reused when there is one, so that steady traffic allocates nothing
+   *
+   * @param origin the origin of the vehicle
+   * @param distance how far behind the entry the vehicle is put
+   */
+  private void enterVehicle(int origin, double distance) {
+
+    double along = Car.ALONG;
+    double across = Car.ACROSS;
+
+    if(mixShares != null) {
+      int mix = drawWeighted(mixShares, mixStream.nextDouble());
+      along = mixAlongs[mix];
+      across = mixAcrosses[mix];
+    }
+
+    double xPosition = getSpawnXPosition(origin, distance);
+    double yPosition = getSpawnYPosition(origin, distance);
+    double speed = minSpeed + (maxSpeed - minSpeed) * speedStream.nextDouble();
+    double orientation = Math.PI * ((origin + 2) % 4) / 2;
+
+    Vehicle vehicle = freeViews.poll();
+
+    if(vehicle == null) {
+      vehicle = new Car(new Size(along, across), new Position(xPosition, yPosition), new Velocity(speed, orientation));
+    } else {
+      vehicle.getSize().setAlong(along);
+      vehicle.getSize().setAcross(across);
+      vehicle.getPosition().setXPosition(xPosition);
+      vehicle.getPosition().setYPosition(yPosition);
+      vehicle.getVelocity().setPolar(speed, orientation);
     }
 
-    if(states.get(index) == 0) states.set(index, 1);
+    vehicle.setOrigin(origin);
+    vehicle.setDestination(arrivals.getDestination(origin, 0));
+    vehicle.setId(arrivals.getId(origin, 0));
+
+    double arrivalTime = arrivals.getArrivalTime(origin, 0);
+
+    arrivals.dequeue(origin);
+
+    int index = vehicles.add(vehicle, -1);
+    vehicles.setSpawnTime(index, arrivalTime);
+    vehicles.setStoppedTime(index, timeElapsed - arrivalTime);
+
+    indexVehicle(index);
 
-    return getAccelerationStraightFor(index);
   }
 
-  public void passTime(double factor) {
+  public VehicleStore getVehicleStore() {
+    return vehicles;
+  }
 
-    cleanVehicles();
+  /**
+   *
+   * @param index the index of a vehicle
+   * @return the handle of the vehicle, by which it can be found for as long as it is in this Crossroad
+   */
+  public long getHandle(int index) {
+    return vehicles.getHandle(index);
+  }
 
-    int pointer = 0;
-    for(Vehicle vehicle: vehicles) vehicle.passTime(factor, getAccelerationFor(pointer++));
+  /**
+   *
+   * @param handle the handle of a vehicle
+   * @return the index of the vehicle, or -1 if it has left this Crossroad
+   */
+  public int getIndex(long handle) {
+    return vehicles.getIndex(handle);
+  }
 
+  /**
+   *
+   * @return the views of the vehicles, brought up to date with the VehicleStore
+   */
+  public ArrayList<Vehicle> getVehicles() {
+
+    vehicleViews.clear();
+
+    for(int index = 0; index < vehicles.size(); index++) vehicleViews.add(vehicles.sync(index));
+
+    return vehicleViews;
   }
 
-  public boolean completed() {
-    return numVehicles == totalNumVehicles + initNumVehicles;
+  public void addObstacle(Obstacle obstacle) {
+    obstacles.add(obstacle);
+  }
+
+  public ArrayList<Obstacle> getObstacles() {
+    return obstacles;
+  }
+
+  /**
+   *
+   * @param position the position to be examined
+   * @return whether or not the position is in the display border
+   */
+  public boolean inBorder(Position position) {
+    return inBorder(position.getXPosition(), position.getYPosition());
+  }
+
+  public boolean inBorder(double xPosition, double yPosition) {
+
+    return xPosition >= 0
+        && xPosition <= Main.PANEL_ALONG
+        && yPosition >= 0
+        && yPosition <= Main.PANEL_ACROSS;
+
+  }
+
+  /**
+   *
+   * @param index the index of the vehicle
+   * @return whether or not the vehicle should be eliminated
+   */
+  public boolean isPresent(int index) {
+    return vehicles.getState(index) != 1 || inBorder(vehicles.getXPosition(index), vehicles.getYPosition(index));
+  }
+
+  /**
+   * remove those vehicles that are no longer meaningful, handing those that leave towards a neighbour over to it
+   * The last vehicle takes the place of each one removed, and is examined in its turn
+   */
+  public void cleanVehicles() {
+
+    int pointer = 0;
+    int count = 0;
+
+    for(ArrayList<Vehicle> outbox: outboxes) outbox.clear();
+
+    while(pointer < vehicles.size()) if(!isPresent(pointer++)) {
+
+      unindexVehicle(--pointer);
+
+      if(vehicles.getState(pointer) == 0) numTurning--;
+
+      int destination = vehicles.getDestination(pointer);
+
+      if(metrics != null) metrics.recordExit(vehicles.getVehicle(pointer).getId(), vehicles.getOrigin(pointer),
+          destination, vehicles.getSpawnTime(pointer), vehicles.getEntryTime(pointer), timeElapsed,
+          vehicles.getStoppedTime(pointer));
+
+      if(neighbours[destination] != null) {
+        outboxes.get(destination).add(vehicles.sync(pointer));
+      } else {
+        freeViews.add(vehicles.getVehicle(pointer));
+        count++;
+        numExited++;
+      }
+
+      vehicles.remove(pointer);
+
+    }
+
+    if(schedule == null) while(count-- > 0) spawnVehicle("map.Car");
+
+  }
+
+  /**
+   * takes over the vehicles the neighbours handed over during the last interval, in the order of the origins, so that
+   * the outcome does not depend on which thread stepped which neighbour first
+   * Must not run while any neighbour is passing time
+   */
+  public void receiveVehicles() {
+
+    for(int origin = 0; origin < 4; origin++) if(neighbours[origin] != null)
+      for(Vehicle vehicle: neighbours[origin].getOutbox((origin + 2) % 4)) receiveVehicle(vehicle, origin);
+
+  }
+
+  /**
+   * places a vehicle coming from a neighbour on the entry of its origin, where it left the panel of the neighbour,
+   * keeping its speed and drawing a new destination
+   *
+   * @param vehicle the view of the vehicle, up to date with the VehicleStore of the neighbour
+   * @param origin the direction of the neighbour
+   */
+  private void receiveVehicle(Vehicle vehicle, int origin) {
+
+    double xPosition = vehicle.getPosition().getXPosition();
+    double yPosition = vehicle.getPosition().getYPosition();
+
+    // the panels of a RoadNetwork are laid edge to edge, and the vehicle is put back on the center of its Lane
+
+    switch(origin) {
+      case 0:
+        xPosition += Main.PANEL_ALONG;
+        yPosition = position.getYPosition() - laneWidth * 0.5;
+        break;
+      case 1:
+        xPosition = position.getXPosition() + laneWidth * 0.5;
+        yPosition += Main.PANEL_ACROSS;
+        break;
+      case 2:
+        xPosition -= Main.PANEL_ALONG;
+        yPosition = position.getYPosition() + laneWidth * 0.5;
+        break;
+      case 3:
+        xPosition = position.getXPosition() - laneWidth * 0.5;
+        yPosition -= Main.PANEL_ACROSS;
+        break;
+    }
+
+    int destination = drawDestination(origin);
+    if(origin == destination) destination = (origin + 2) % 4;
+
+    // the view moves over with the vehicle, and is reused rather than given a new Position and Velocity
+
+    vehicle.getPosition().setXPosition(xPosition);
+    vehicle.getPosition().setYPosition(yPosition);
+    vehicle.getVelocity().setPolar(vehicle.getVelocity().getMagnitude(), Math.PI * ((origin + 2) % 4) / 2);
+    vehicle.setOrigin(origin);
+    vehicle.setDestination(destination);
+
+    int index = vehicles.add(vehicle, -1);
+    vehicles.setSpawnTime(index, timeElapsed);
+
+    indexVehicle(index);
+
+  }
+
+  /**
+   *
+   * @param position the position of the point
+   * @return whether or not the position of the point is in the center of the crossroad
+   */
+  public boolean inCenter(Position position) {
+    return inCenter(position.getXPosition(), position.getYPosition());
+  }
+
+  public boolean inCenter(double xPosition, double yPosition) {
+
+    return (this.position.getXPosition() - this.laneWidth <= xPosition)
+        && (this.position.getXPosition() + this.laneWidth >= xPosition)
+        && (this.position.getYPosition() - this.laneWidth <= yPosition)
+        && (this.position.getYPosition() + this.laneWidth >= yPosition);
+
+  }
+
+  /**
+   *
+   * @param index the index of the vehicle of interest
+   * @return whether or not that vehicle is in the center of the crossroad (is turning)
+   */
+  public boolean isTurning(int index) {
+    return inCenter(vehicles.getXPosition(index), vehicles.getYPosition(index));
+  }
+
+  public int getLaneNum(int index) {
+
+    if(vehicles.getState(index) == 1) return vehicles.getDestination(index);
+    if(vehicles.getState(index) == -1) return (vehicles.getOrigin(index) + 2) % 4;
+
+    return -1;
+  }
+
+  /**
+   *
+   * @param index the index of the vehicle of interest
+   * @param laneNum the Lane of interest
+   * @return whether or not the vehicle has to be taken into account by the vehicles driving on that Lane
+   */
+  public boolean occupies(int index, int laneNum) {
+    numLaneTests++;
+    return getLaneNum(index) == laneNum || lanes[laneNum].inRange(vehicles.getXPosition(index), vehicles.getYPosition(index),
+        vehicles.getXHeading(index), vehicles.getYHeading(index), vehicles.getAlong(index), vehicles.getAcross(index), false);
+  }
+
+  /**
+   * adds a newly spawned vehicle to the indices of the Lanes it occupies
+   */
+  private void indexVehicle(int index) {
+
+    for(int laneNum = 0; laneNum < 4; laneNum++) if(occupies(index, laneNum))
+      laneIndices[laneNum].insert(vehicles.getVehicle(index), vehicles.getPosition(index, laneIndices[laneNum].isAlong()));
+
+  }
+
+  /**
+   * removes a vehicle that is about to be eliminated from the indices of the Lanes
+   */
+  private void unindexVehicle(int index) {
+
+    for(LaneIndex laneIndex: laneIndices) {
+      int rank = laneIndex.find(vehicles.getVehicle(index), vehicles.getPosition(index, laneIndex.isAlong()));
+      if(rank >= 0) laneIndex.remove(rank);
+    }
+
+  }
+
+  /**
+   * brings the indices of the Lanes up to date after a vehicle has moved or changed its state
+   *
+   * @param index the index of the vehicle
+   * @param oldXPosition the horizontal position the vehicle was indexed with
+   * @param oldYPosition the vertical position the vehicle was indexed with
+   */
+  private void reindexVehicle(int index, double oldXPosition, double oldYPosition) {
+
+    Vehicle vehicle = vehicles.getVehicle(index);
+
+    for(int laneNum = 0; laneNum < 4; laneNum++) {
+      LaneIndex laneIndex = laneIndices[laneNum];
+      laneIndex.update(vehicle, laneIndex.isAlong() ? oldXPosition : oldYPosition,
+          vehicles.getPosition(index, laneIndex.isAlong()), occupies(index, laneNum));
+    }
+
+  }
+
+  /**
+   * changes the state of a vehicle, keeping the count of turning vehicles and the indices of the Lanes up to date
+   */
+  private void setState(int index, int state) {
+
+    int oldState = vehicles.getState(index);
+
+    if(oldState == state) return;
+
+    if(oldState == 0) numTurning--;
+    if(state == 0) numTurning++;
+
+    if(oldState == -1 && state == 0) vehicles.setEntryTime(index, timeElapsed);
+
+    vehicles.setState(index, state);
+
+    reindexVehicle(index, vehicles.getXPosition(index), vehicles.getYPosition(index));
+
+  }
+
+  /**
+   *
+   * @param origin the origin of the vehicle of interest
+   * @return a virtual block in the road to prevent multiple cars from using the turning point at the same time.
+   */
+  public double virtualBlock(int origin) {
+
+    switch(origin) {
+      case 0:
+        return position.getXPosition() + laneWidth * 1.5;
+      case 1:
+        return position.getYPosition() + laneWidth * 1.5;
+      case 2:
+        return position.getXPosition() - laneWidth * 1.5;
+      case 3:
+        return position.getYPosition() - laneWidth * 1.5;
+      default:
+        return -1;
+    }
+
+  }
+
+  /**
+   * computes the acceleration of a vehicle on a straight road into the acceleration columns of the VehicleStore
+   *
+   * @param index the index of the vehicle
+   */
+  public void computeAccelerationStraightFor(int index) {
+
+    int laneNum = getLaneNum(index);
+    LaneIndex laneIndex = laneIndices[laneNum];
+    Vehicle vehicle = vehicles.getVehicle(index);
+
+    double absolutePosition = vehicles.getPosition(index, laneIndex.isAlong());
+
+    // the neighbours right before and right after the vehicle along the lane, in increasing order of coordinate
+
+    int rank = laneIndex.find(vehicle, absolutePosition);
+
+    boolean hasLower = rank > 0;
+    boolean hasUpper = rank < laneIndex.size() - 1;
+    double lowerPosition = hasLower ? laneIndex.getKey(rank - 1) : 0;
+    double upperPosition = hasUpper ? laneIndex.getKey(rank + 1) : 0;
+
+    if(numTurning > 0) {
+
+      double blockPosition = virtualBlock(vehicles.getOrigin(index));
+
+      if(blockPosition < absolutePosition) {
+        if(!hasLower || blockPosition > lowerPosition) {
+          lowerPosition = blockPosition;
+          hasLower = true;
+        }
+      } else {
+        if(!hasUpper || blockPosition < upperPosition) {
+          upperPosition = blockPosition;
+          hasUpper = true;
+        }
+      }
+
+    }
+
+    double frontGap;
+    double backGap;
+
+    if(laneNum > 1) {
+      frontGap = absolutePosition - (hasLower ? lowerPosition : -Double.MAX_VALUE);
+      backGap = (hasUpper ? upperPosition : Double.MAX_VALUE / 2) - absolutePosition;
+    } else {
+      frontGap = (hasUpper ? upperPosition : Double.MAX_VALUE / 2) - absolutePosition;
+      backGap = absolutePosition - (hasLower ? lowerPosition : -Double.MAX_VALUE / 2);
+    }
+
+    // 1 to accelerate along the velocity, -1 to decelerate, 0 to keep the velocity
+
+    int direction = 0;
+
+    if("map.Car".equals(vehicle.getClass().getName())) {
+
+      double squaredSpeed = Math.pow(vehicles.getXVelocity(index), 2) + Math.pow(vehicles.getYVelocity(index), 2);
+
+      boolean canAccelerate = squaredSpeed < Math.pow(Car.MAX_VELOCITY_MAGNITUDE, 2);
+      boolean canDecelerate = squaredSpeed > Math.pow(Car.MAX_ACCELERATION_MAGNITUDE * Main.INTERVAL, 2);
+
+      if(frontGap > RANGE_OF_INTEREST) {
+
+        // If there is no vehicle in front then accelerate to max speed if possible
+
+        direction = canAccelerate ? 1 : 0;
+
+      } else if(backGap > RANGE_OF_INTEREST) {
+
+        // Given that there is a vehicle in front, decelerate if there is no vehicle at back and if possible
+
+        direction = canDecelerate ? -1 : 0;
+
+      } else if(backGap > frontGap) {
+
+        // Given that there are vehicles both in front and at back, balance
+
+        direction = canDecelerate ? -1 : 0;
+
+      } else {
+
+        direction = canAccelerate ? 1 : 0;
+
+      }
+
+    }
+
+    setAccelerationAlongVelocity(index, direction * Car.MAX_ACCELERATION_MAGNITUDE);
+
+  }
+
+  /**
+   * computes the centripetal acceleration of a vehicle turning in the center into the acceleration columns of the VehicleStore
+   * The acceleration is perpendicular to the velocity, so its components are those of the velocity rotated by a quarter turn
+   *
+   * @param index the index of the vehicle
+   */
+  public void computeAccelerationTurningFor(int index) {
+
+    int origin = vehicles.getOrigin(index);
+    int destination = vehicles.getDestination(index);
+
+    double xVelocity = vehicles.getXVelocity(index);
+    double yVelocity = vehicles.getYVelocity(index);
+
+    if((destination - origin - 1) % 4 == 0) {
+
+      // turning right, toward orientation - PI / 2, around a radius of 1.5 lane widths
+
+      double factor = vehicles.getSpeed(index) / (laneWidth * 1.5);
+      vehicles.setAcceleration(index, yVelocity * factor, -xVelocity * factor);
+
+    } else if((destination - origin + 1) % 4 == 0) {
+
+      // turning left, toward orientation + PI / 2, around a radius of 0.5 lane width
+
+      double factor = vehicles.getSpeed(index) / (laneWidth * 0.5);
+      vehicles.setAcceleration(index, -yVelocity * factor, xVelocity * factor);
+
+    } else {
+
+      vehicles.setAcceleration(index, 0, 0);
+
+    }
+
+  }
+
+  /**
+   *
+   * @param index the index of the vehicle
+   * @param magnitude the signed magnitude of the acceleration; a vehicle at rest accelerates along its Lane
+   */
+  private void setAccelerationAlongVelocity(int index, double magnitude) {
+
+    if(magnitude == 0) {
+      vehicles.setAcceleration(index, 0, 0);
+      return;
+    }
+
+    // the heading is the velocity while the vehicle moves, and the unit direction of its Lane at rest
+
+    double xHeading = vehicles.getXHeading(index);
+    double yHeading = vehicles.getYHeading(index);
+    double length = Velocity.magnitudeFromComponents(xHeading, yHeading);
+
+    vehicles.setAcceleration(index, xHeading * magnitude / length, yHeading * magnitude / length);
+
+  }
+
+  /**
+   * updates the state of a vehicle and computes its acceleration into the acceleration columns of the VehicleStore
+   *
+   * @param index the index of the vehicle
+   */
+  public void computeAccelerationFor(int index) {
+
+    if(vehicles.getState(index) == 0) {
+      computeAccelerationTurningFor(index);
+    } else {
+      computeAccelerationStraightFor(index);
+    }
+
+  }
+
+  /**
+   * marks a vehicle as turning when it is in the center, and as post-turn once it has left the center
+   *
+   * @param index the index of the vehicle
+   */
+  public void updateStateFor(int index) {
+
+    if(isTurning(index)) {
+      setState(index, 0);
+    } else if(vehicles.getState(index) == 0) {
+      setState(index, 1);
+    }
+
+  }
+
+  /**
+   *
+   * @param index the index of the vehicle
+   * @return the acceleration of the vehicle, after updating its state
+   */
+  public Acceleration getAccelerationFor(int index) {
+
+    updateStateFor(index);
+    computeAccelerationFor(index);
+
+    return Acceleration.accelerationFromComponents(vehicles.getXAcceleration(index), vehicles.getYAcceleration(index));
+  }
+
+  /**
+   * computes the accelerations of a range of vehicles, splitting the range across the fork/join pool
+   */
+  private class AccelerationTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    public AccelerationTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    protected void compute() {
+
+      if(to - from <= PARALLEL_GRAIN) {
+        for(int index = from; index < to; index++) computeAccelerationFor(index);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new AccelerationTask(from, middle), new AccelerationTask(middle, to));
+
+    }
+
+  }
+
+  /**
+   * Advances the Crossroad by one interval in two phases, so that the result does not depend on the order of the vehicles:
+   * every acceleration is first computed against the positions, states and Lane indices left by the previous interval,
+   * which are not modified meanwhile, and only then are all vehicles moved
+   *
+   * @param factor the multiple of Main.INTERVAL to advance by
+   */
+  public void passTime(double factor) {
+
+    cleanVehicles();
+
+    admitVehicles();
+
+    if(profiler != null) profiler.mark(TickProfiler.CLEAN);
+
+    double interval = Main.INTERVAL * factor;
+    int size = vehicles.size();
+
+    // the state of a vehicle only depends on its own position
+
+    for(int index = 0; index < size; index++) updateStateFor(index);
+
+    if(profiler != null) profiler.mark(TickProfiler.STATE);
+
+    // compute phase: reads the Crossroad, only writes the acceleration columns of the VehicleStore
+
+    if(size >= parallelThreshold) {
+      pool.invoke(new AccelerationTask(0, size));
+    } else {
+      for(int index = 0; index < size; index++) computeAccelerationFor(index);
+    }
+
+    if(profiler != null) profiler.mark(TickProfiler.ACCELERATION);
+
+    // apply phase
+
+    if(oldXPositions.length < size) {
+      oldXPositions = new double[vehicles.capacity()];
+      oldYPositions = new double[vehicles.capacity()];
+    }
+
+    for(int index = 0; index < size; index++) {
+      oldXPositions[index] = vehicles.getXPosition(index);
+      oldYPositions[index] = vehicles.getYPosition(index);
+      Kinematics.integrate(vehicles, index, interval, Car.MAX_VELOCITY_MAGNITUDE);
+    }
+
+    if(profiler != null) profiler.mark(TickProfiler.INTEGRATION);
+
+    for(int index = 0; index < size; index++) reindexVehicle(index, oldXPositions[index], oldYPositions[index]);
+
+    if(profiler != null) profiler.mark(TickProfiler.REINDEX);
+
+    timeElapsed += interval;
+
+    if(metrics != null) recordMetrics(interval);
+
+  }
+
+  /**
+   * adds the interval to the stopped time of every stopped vehicle, and records the queue of every approach: the
+   * vehicles waiting to enter and those stopped before the center
+   */
+  private void recordMetrics(double interval) {
+
+    double stoppedSquaredSpeed = CrossroadMetrics.STOPPED_SPEED * CrossroadMetrics.STOPPED_SPEED;
+
+    for(int origin = 0; origin < 4; origin++) queueLengths[origin] = arrivals.getQueueLength(origin);
+
+    for(int index = 0; index < vehicles.size(); index++) {
+
+      double xVelocity = vehicles.getXVelocity(index);
+      double yVelocity = vehicles.getYVelocity(index);
+
+      if(xVelocity * xVelocity + yVelocity * yVelocity >= stoppedSquaredSpeed) continue;
+
+      vehicles.setStoppedTime(index, vehicles.getStoppedTime(index) + interval);
+
+      if(vehicles.getState(index) == -1) queueLengths[vehicles.getOrigin(index)]++;
+
+    }
+
+    metrics.recordTick(timeElapsed, queueLengths);
+
+  }
+
+  /**
+   *
+   * @return whether every vehicle has been spawned and has left; with an arrival schedule, the schedule may also run
+   * out of arrivals before the total number of vehicles is reached
+   */
+  public boolean completed() {
+
+    return (schedule != null || numVehicles >= totalNumVehicles) && arrivals.isEmpty() && vehicles.size() == 0;
+  }
+
+  /**
+   * creates the view of a vehicle restored from its row; every vehicle a Crossroad spawns is a Car
+   */
+  private static Vehicle createView(double along, double across, double xPosition, double yPosition,
+                                    double xVelocity, double yVelocity, int origin, int destination, int id) {
+
+    Vehicle vehicle = new Car(new Size(along, across), new Position(xPosition, yPosition),
+        Velocity.velocityFromComponents(xVelocity, yVelocity));
+
+    vehicle.setOrigin(origin);
+    vehicle.setDestination(destination);
+    vehicle.setId(id);
+
+    return vehicle;
+  }
+
+  /**
+   * Copies this Crossroad between two intervals, so that the copy goes on exactly as this one would: the vehicles, their
+   * states, the indices of the Lanes, the counters, the random streams and the obstacles are all copied
+   * The copy is not connected to any neighbour, does not record metrics, and shares the fork/join pool of this Crossroad
+   *
+   * @return a Crossroad independent from this one from now on
+   */
+  public Crossroad fork() {
+
+    Crossroad fork = new Crossroad(position, laneWidth, initNumVehicles, totalNumVehicles, seed);
+
+    fork.arrivalStream = arrivalStream.copy();
+    fork.routingStream = routingStream.copy();
+    fork.speedStream = speedStream.copy();
+    fork.mixStream = mixStream.copy();
+    fork.scheduleStream = scheduleStream.copy();
+    fork.schedule = schedule;
+    fork.arrivals.copyFrom(arrivals);
+    fork.setSpeedRange(minSpeed, maxSpeed);
+    fork.setArrivalWeights(arrivalWeights);
+    fork.setTurnRatios(turnRatios);
+    fork.setVehicleMix(mixShares, mixAlongs, mixAcrosses);
+    fork.numVehicles = numVehicles;
+    fork.numExited = numExited;
+    fork.numTurning = numTurning;
+    fork.timeElapsed = timeElapsed;
+    fork.parallelThreshold = parallelThreshold;
+    fork.pool = pool;
+
+    fork.vehicles.copyFrom(vehicles);
+
+    IdentityHashMap<Vehicle, Vehicle> views = new IdentityHashMap<>();
+
+    for(int index = 0; index < vehicles.size(); index++) {
+      Vehicle vehicle = vehicles.getVehicle(index);
+      Vehicle view = createView(vehicles.getAlong(index), vehicles.getAcross(index),
+          vehicles.getXPosition(index), vehicles.getYPosition(index),
+          vehicles.getXVelocity(index), vehicles.getYVelocity(index),
+          vehicles.getOrigin(index), vehicles.getDestination(index), vehicle.getId());
+      fork.vehicles.setVehicle(index, view);
+      views.put(vehicle, view);
+    }
+
+    for(int laneNum = 0; laneNum < 4; laneNum++) fork.laneIndices[laneNum].copyFrom(laneIndices[laneNum], views);
+
+    for(Obstacle obstacle: obstacles) fork.obstacles.add(copyObstacle(obstacle));
+
+    return fork;
+  }
+
+  /**
+   *
+   * @param obstacle an obstacle; only Pedestrians can be copied
+   * @return a copy of the obstacle, with a copy of its Path
+   */
+  public static Obstacle copyObstacle(Obstacle obstacle) {
+
+    if(!"map.Pedestrian".equals(obstacle.getClass().getName()))
+      throw new IllegalArgumentException(String.format("CANNOT COPY OBSTACLE: %s", obstacle.getClass().getName()));
+
+    return new Pedestrian(new Size(obstacle.getSize().getAlong(), obstacle.getSize().getAcross()),
+        new Position(obstacle.getPosition().getXPosition(), obstacle.getPosition().getYPosition()),
+        Velocity.velocityFromComponents(obstacle.getVelocity().getXMagnitude(), obstacle.getVelocity().getYMagnitude()),
+        obstacle.getPath() == null ? null : obstacle.getPath().copy());
+  }
+
+  /**
+   * Writes the state of this Crossroad between two intervals, from which readState() restores a Crossroad that goes on
+   * exactly as this one would
+   * Layout, in the big endian order of DataOutput:
+   * int STATE_MAGIC, int STATE_VERSION, double x and y of the center, double lane width, int initial and total numbers
+   * of vehicles, long seed, int numbers of vehicles spawned, exited and turning, double time elapsed,
+   * long seed and gamma of the arrival, routing, speed, mix and schedule streams,
+   * double lowest and highest initial speeds, boolean whether there are arrival weights, and if so the 4 weights,
+   * boolean whether there are turn ratios, and if so the 3 ratios of each origin, int number of types of vehicles,
+   * 0 without a vehicle mix, then the share, length and width of each type, boolean whether there is an arrival
+   * schedule, and if so the schedule, see ArrivalSchedule.writeTo(), then the pending arrivals and the vehicles
+   * waiting to enter, see ArrivalScheduler.writeTo(),
+   * int number of vehicles, then for each row: int id, byte origin, destination and state, double x, y, x and y of the
+   * velocity, x and y of the acceleration, along and across, spawn, entry and stopped times,
+   * then the slot map of the handles, see VehicleStore.writeSlots(), for each of the four Lanes: int number of entries, then for each entry in order: int row, double key,
+   * then the obstacles, see writeObstacles()
+   * Neighbours and metrics are not written: a restored Crossroad stands alone
+   *
+   * @param output where the state is written
+   */
+  public void writeState(DataOutput output) throws IOException {
+
+    output.writeInt(STATE_MAGIC);
+    output.writeInt(STATE_VERSION);
+
+    output.writeDouble(position.getXPosition());
+    output.writeDouble(position.getYPosition());
+    output.writeDouble(laneWidth);
+    output.writeInt(initNumVehicles);
+    output.writeInt(totalNumVehicles);
+    output.writeLong(seed);
+
+    output.writeInt(numVehicles);
+    output.writeInt(numExited);
+    output.writeInt(numTurning);
+    output.writeDouble(timeElapsed);
+
+    for(RandomStream stream: new RandomStream[] {arrivalStream, routingStream, speedStream, mixStream,
+        scheduleStream}) {
+      output.writeLong(stream.getSeed());
+      output.writeLong(stream.getGamma());
+    }
+
+    output.writeDouble(minSpeed);
+    output.writeDouble(maxSpeed);
+
+    output.writeBoolean(arrivalWeights != null);
+    if(arrivalWeights != null) for(double weight: arrivalWeights) output.writeDouble(weight);
+
+    output.writeBoolean(turnRatios != null);
+    if(turnRatios != null) for(double[] ratios: turnRatios) for(double ratio: ratios) output.writeDouble(ratio);
+
+    output.writeInt(mixShares == null ? 0 : mixShares.length);
+    if(mixShares != null) for(int mix = 0; mix < mixShares.length; mix++) {
+      output.writeDouble(mixShares[mix]);
+      output.writeDouble(mixAlongs[mix]);
+      output.writeDouble(mixAcrosses[mix]);
+    }
+
+    output.writeBoolean(schedule != null);
+    if(schedule != null) schedule.writeTo(output);
+
+    arrivals.writeTo(output);
+
+    IdentityHashMap<Vehicle, Integer> rows = new IdentityHashMap<>();
+
+    output.writeInt(vehicles.size());
+
+    for(int index = 0; index < vehicles.size(); index++) {
+      rows.put(vehicles.getVehicle(index), index);
+      output.writeInt(vehicles.getVehicle(index).getId());
+      output.writeByte(vehicles.getOrigin(index));
+      output.writeByte(vehicles.getDestination(index));
+      output.writeByte(vehicles.getState(index));
+      output.writeDouble(vehicles.getXPosition(index));
+      output.writeDouble(vehicles.getYPosition(index));
+      output.writeDouble(vehicles.getXVelocity(index));
+      output.writeDouble(vehicles.getYVelocity(index));
+      output.writeDouble(vehicles.getXAcceleration(index));
+      output.writeDouble(vehicles.getYAcceleration(index));
+      output.writeDouble(vehicles.getAlong(index));
+      output.writeDouble(vehicles.getAcross(index));
+      output.writeDouble(vehicles.getSpawnTime(index));
+      output.writeDouble(vehicles.getEntryTime(index));
+      output.writeDouble(vehicles.getStoppedTime(index));
+    }
+
+    vehicles.writeSlots(output);
+
+    for(LaneIndex laneIndex: laneIndices) {
+      output.writeInt(laneIndex.size());
+      for(int rank = 0; rank < laneIndex.size(); rank++) {
+        output.writeInt(rows.get(laneIndex.getVehicle(rank)));
+        output.writeDouble(laneIndex.getKey(rank));
+      }
+    }
+
+    writeObstacles(output, obstacles);
+
+  }
+
+  /**
+   *
+   * @param input where a state written by writeState() is read from
+   * @return a Crossroad that goes on exactly as the one whose state was written would
+   */
+  public static Crossroad readState(DataInput input) throws IOException {
+
+    if(input.readInt() != STATE_MAGIC) throw new IOException("NOT A CROSSROAD STATE");
+
+    int version = input.readInt();
+    if(version != STATE_VERSION) throw new IOException(String.format("UNSUPPORTED CROSSROAD STATE VERSION: %d", version));
+
+    Position position = new Position(input.readDouble(), input.readDouble());
+    double laneWidth = input.readDouble();
+    int initNumVehicles = input.readInt();
+    int totalNumVehicles = input.readInt();
+    long seed = input.readLong();
+
+    Crossroad crossroad = new Crossroad(position, laneWidth, initNumVehicles, totalNumVehicles, seed);
+
+    crossroad.numVehicles = input.readInt();
+    crossroad.numExited = input.readInt();
+    crossroad.numTurning = input.readInt();
+    crossroad.timeElapsed = input.readDouble();
+
+    crossroad.arrivalStream = new RandomStream(input.readLong(), input.readLong());
+    crossroad.routingStream = new RandomStream(input.readLong(), input.readLong());
+    crossroad.speedStream = new RandomStream(input.readLong(), input.readLong());
+    crossroad.mixStream = new RandomStream(input.readLong(), input.readLong());
+    crossroad.scheduleStream = new RandomStream(input.readLong(), input.readLong());
+
+    crossroad.setSpeedRange(input.readDouble(), input.readDouble());
+
+    if(input.readBoolean()) {
+      crossroad.arrivalWeights = new double[4];
+      for(int origin = 0; origin < 4; origin++) crossroad.arrivalWeights[origin] = input.readDouble();
+    }
+
+    if(input.readBoolean()) {
+      crossroad.turnRatios = new double[4][3];
+      for(int origin = 0; origin < 4; origin++) for(int turn = 0; turn < 3; turn++)
+        crossroad.turnRatios[origin][turn] = input.readDouble();
+    }
+
+    int numMixes = input.readInt();
+
+    if(numMixes > 0) {
+      crossroad.mixShares = new double[numMixes];
+      crossroad.mixAlongs = new double[numMixes];
+      crossroad.mixAcrosses = new double[numMixes];
+      for(int mix = 0; mix < numMixes; mix++) {
+        crossroad.mixShares[mix] = input.readDouble();
+        crossroad.mixAlongs[mix] = input.readDouble();
+        crossroad.mixAcrosses[mix] = input.readDouble();
+      }
+    }
+
+    if(input.readBoolean()) crossroad.schedule = ArrivalSchedule.readFrom(input);
+
+    crossroad.arrivals.copyFrom(ArrivalScheduler.readFrom(input));
+
+    VehicleStore vehicles = crossroad.vehicles;
+    int size = input.readInt();
+
+    for(int index = 0; index < size; index++) {
+
+      int id = input.readInt();
+      int origin = input.readByte();
+      int destination = input.readByte();
+      int state = input.readByte();
+      double xPosition = input.readDouble();
+      double yPosition = input.readDouble();
+      double xVelocity = input.readDouble();
+      double yVelocity = input.readDouble();
+      double xAcceleration = input.readDouble();
+      double yAcceleration = input.readDouble();
+      double along = input.readDouble();
+      double across = input.readDouble();
+
+      vehicles.add(createView(along, across, xPosition, yPosition, xVelocity, yVelocity, origin, destination, id), state);
+      vehicles.setAcceleration(index, xAcceleration, yAcceleration);
+      vehicles.setSpawnTime(index, input.readDouble());
+      vehicles.setEntryTime(index, input.readDouble());
+      vehicles.setStoppedTime(index, input.readDouble());
+
+    }
+
+    vehicles.readSlots(input);
+
+    for(LaneIndex laneIndex: crossroad.laneIndices) {
+      int numEntries = input.readInt();
+      for(int rank = 0; rank < numEntries; rank++) laneIndex.append(vehicles.getVehicle(input.readInt()), input.readDouble());
+    }
+
+    crossroad.obstacles.addAll(readObstacles(input));
+
+    return crossroad;
+  }
+
+  /**
+   * Layout: int number of obstacles, then for each one: double along and across, double x and y of the position and of
+   * the velocity, boolean whether it has a Path, and if so: boolean loop, int current count, int number of positions,
+   * double x and y of each position
+   *
+   * @param output where the obstacles are written
+   * @param obstacles the obstacles; only Pedestrians can be written
+   */
+  public static void writeObstacles(DataOutput output, ArrayList<Obstacle> obstacles) throws IOException {
+
+    output.writeInt(obstacles.size());
+
+    for(Obstacle obstacle: obstacles) {
+
+      if(!"map.Pedestrian".equals(obstacle.getClass().getName()))
+        throw new IllegalArgumentException(String.format("CANNOT WRITE OBSTACLE: %s", obstacle.getClass().getName()));
+
+      output.writeDouble(obstacle.getSize().getAlong());
+      output.writeDouble(obstacle.getSize().getAcross());
+      output.writeDouble(obstacle.getPosition().getXPosition());
+      output.writeDouble(obstacle.getPosition().getYPosition());
+      output.writeDouble(obstacle.getVelocity().getXMagnitude());
+      output.writeDouble(obstacle.getVelocity().getYMagnitude());
+
+      Path path = obstacle.getPath();
+
+      output.writeBoolean(path != null);
+
+      if(path == null) continue;
+
+      output.writeBoolean(path.getLoop());
+      output.writeInt(path.getCurrentCount());
+      output.writeInt(path.getPositions().size());
+
+      for(Position position: path.getPositions()) {
+        output.writeDouble(position.getXPosition());
+        output.writeDouble(position.getYPosition());
+      }
+
+    }
+
+  }
+
+  public static ArrayList<Obstacle> readObstacles(DataInput input) throws IOException {
+
+    ArrayList<Obstacle> obstacles = new ArrayList<>();
+    int numObstacles = input.readInt();
+
+    for(int i = 0; i < numObstacles; i++) {
+
+      Size size = new Size(input.readDouble(), input.readDouble());
+      Position position = new Position(input.readDouble(), input.readDouble());
+      Velocity velocity = Velocity.velocityFromComponents(input.readDouble(), input.readDouble());
+      Path path = null;
+
+      if(input.readBoolean()) {
+
+        boolean loop = input.readBoolean();
+        int currentCount = input.readInt();
+        int numPositions = input.readInt();
+
+        ArrayList<Position> positions = new ArrayList<>();
+        for(int j = 0; j < numPositions; j++) positions.add(new Position(input.readDouble(), input.readDouble()));
+
+        path = new Path(loop, positions);
+        path.setCurrentCount(currentCount);
+
+      }
+
+      obstacles.add(new Pedestrian(size, position, velocity, path));
+
+    }
+
+    return obstacles;
+  }
+
+  /**
+   *
+   * @return the state of this Crossroad, see writeState()
+   */
+  public byte[] saveState() throws IOException {
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try(DataOutputStream output = new DataOutputStream(bytes)) {
+      writeState(output);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  /**
+   *
+   * @param state the state of a Crossroad, as returned by saveState()
+   * @return the restored Crossroad
+   */
+  public static Crossroad restoreState(byte[] state) throws IOException {
+    return readState(new DataInputStream(new ByteArrayInputStream(state)));
   }
 
 }
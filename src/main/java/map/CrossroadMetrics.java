@@ -0,0 +1,224 @@
+package map;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class CrossroadMetrics {
+
+  /**
+   * the speed under which a vehicle is counted as stopped, in meters per second
+   */
+  public static final double STOPPED_SPEED = 0.5;
+
+  public static final double TIME_RESOLUTION = 0.01;
+  public static final double HIGHEST_TIME = 3600.;
+  public static final int HIGHEST_QUEUE_LENGTH = 4096;
+
+  // one row per vehicle that has left the Crossroad, in the order they left
+
+  private int[] ids;
+  private byte[] origins;
+  private byte[] destinations;
+  private double[] spawnTimes;
+  private double[] entryTimes;
+  private double[] exitTimes;
+  private double[] stoppedTimes;
+  private int numRecords;
+
+  // by approach, that is by origin
+
+  private final int[] throughputs;
+  private final LogHistogram[] travelTimes;
+  private final LogHistogram[] delays;
+  private final LogHistogram[] queueLengths;
+
+  private double timeElapsed;
+  private long numTicks;
+
+  /**
+   * The CrossroadMetrics records what happened to every vehicle of a Crossroad and summarizes each approach: the number
+   * of vehicles that went through it, and the distributions of their travel times, of the time they spent stopped,
+   * and of the length of its queue at the end of every interval
+   * Everything is allocated up front, so the Crossroad records its metrics without allocating anything on its ticks
+   *
+   * @param expectedNumVehicles the number of vehicles expected to leave the Crossroad; more only costs a reallocation
+   */
+  public CrossroadMetrics(int expectedNumVehicles) {
+
+    int capacity = Math.max(16, expectedNumVehicles);
+
+    ids = new int[capacity];
+    origins = new byte[capacity];
+    destinations = new byte[capacity];
+    spawnTimes = new double[capacity];
+    entryTimes = new double[capacity];
+    exitTimes = new double[capacity];
+    stoppedTimes = new double[capacity];
+    numRecords = 0;
+
+    throughputs = new int[4];
+    travelTimes = new LogHistogram[4];
+    delays = new LogHistogram[4];
+    queueLengths = new LogHistogram[4];
+
+    for(int origin = 0; origin < 4; origin++) {
+      travelTimes[origin] = new LogHistogram(TIME_RESOLUTION, HIGHEST_TIME);
+      delays[origin] = new LogHistogram(TIME_RESOLUTION, HIGHEST_TIME);
+      queueLengths[origin] = new LogHistogram(1, HIGHEST_QUEUE_LENGTH);
+    }
+
+    timeElapsed = 0.;
+    numTicks = 0;
+
+  }
+
+  private void grow() {
+
+    int capacity = ids.length * 2;
+
+    ids = Arrays.copyOf(ids, capacity);
+    origins = Arrays.copyOf(origins, capacity);
+    destinations = Arrays.copyOf(destinations, capacity);
+    spawnTimes = Arrays.copyOf(spawnTimes, capacity);
+    entryTimes = Arrays.copyOf(entryTimes, capacity);
+    exitTimes = Arrays.copyOf(exitTimes, capacity);
+    stoppedTimes = Arrays.copyOf(stoppedTimes, capacity);
+
+  }
+
+  /**
+   * records a vehicle leaving the Crossroad, whether it is eliminated or handed over to a neighbour
+   *
+   * @param id the id of the vehicle
+   * @param origin the approach the vehicle came from
+   * @param destination the direction the vehicle left to
+   * @param spawnTime when the vehicle appeared in the Crossroad, in seconds
+   * @param entryTime when the vehicle entered the center, or NaN if it never did
+   * @param exitTime when the vehicle left, in seconds
+   * @param stoppedTime how long the vehicle was stopped, in seconds
+   */
+  public void recordExit(int id, int origin, int destination, double spawnTime, double entryTime, double exitTime,
+                         double stoppedTime) {
+
+    if(numRecords == ids.length) grow();
+
+    ids[numRecords] = id;
+    origins[numRecords] = (byte)origin;
+    destinations[numRecords] = (byte)destination;
+    spawnTimes[numRecords] = spawnTime;
+    entryTimes[numRecords] = entryTime;
+    exitTimes[numRecords] = exitTime;
+    stoppedTimes[numRecords] = stoppedTime;
+    numRecords++;
+
+    throughputs[origin]++;
+    travelTimes[origin].record(exitTime - spawnTime);
+    delays[origin].record(stoppedTime);
+
+  }
+
+  /**
+   *
+   * @param timeElapsed the simulated time at the end of the interval, in seconds
+   * @param queueLengths the number of vehicles stopped before the center on each approach
+   */
+  public void recordTick(double timeElapsed, int[] queueLengths) {
+
+    for(int origin = 0; origin < 4; origin++) this.queueLengths[origin].record(queueLengths[origin]);
+
+    this.timeElapsed = timeElapsed;
+    numTicks++;
+
+  }
+
+  public int getNumRecords() {
+    return numRecords;
+  }
+
+  public int getId(int record) {
+    return ids[record];
+  }
+
+  public int getOrigin(int record) {
+    return origins[record];
+  }
+
+  public int getDestination(int record) {
+    return destinations[record];
+  }
+
+  public double getSpawnTime(int record) {
+    return spawnTimes[record];
+  }
+
+  public double getEntryTime(int record) {
+    return entryTimes[record];
+  }
+
+  public double getExitTime(int record) {
+    return exitTimes[record];
+  }
+
+  public double getStoppedTime(int record) {
+    return stoppedTimes[record];
+  }
+
+  public int getThroughput(int origin) {
+    return throughputs[origin];
+  }
+
+  public LogHistogram getTravelTimes(int origin) {
+    return travelTimes[origin];
+  }
+
+  public LogHistogram getDelays(int origin) {
+    return delays[origin];
+  }
+
+  public LogHistogram getQueueLengths(int origin) {
+    return queueLengths[origin];
+  }
+
+  /**
+   * writes a summary of every approach
+   *
+   * @param output where the report is written
+   */
+  public void writeReport(PrintStream output) {
+
+    output.println(String.format("METRICS OVER %.2f SECONDS (%d TICKS), %d VEHICLES EXITED",
+        timeElapsed, numTicks, numRecords));
+
+    for(int origin = 0; origin < 4; origin++) {
+      output.println(String.format("APPROACH %d: THROUGHPUT %d VEHICLES, %.4f VEHICLES PER SECOND",
+          origin, throughputs[origin], timeElapsed > 0 ? throughputs[origin] / timeElapsed : Double.NaN));
+      output.println("  " + travelTimes[origin].toString("TRAVEL TIME (SECONDS)"));
+      output.println("  " + delays[origin].toString("DELAY (SECONDS STOPPED)"));
+      output.println("  " + queueLengths[origin].toString("QUEUE LENGTH (VEHICLES)"));
+    }
+
+  }
+
+  /**
+   * writes one line per vehicle that has left the Crossroad, as comma separated values with a header
+   *
+   * @param output where the vehicles are written
+   */
+  public void writeVehicles(PrintStream output) {
+
+    output.println("ID,ORIGIN,DESTINATION,SPAWN TIME,ENTRY TIME,EXIT TIME,STOPPED TIME");
+
+    for(int record = 0; record < numRecords; record++)
+      output.println(String.format("%d,%d,%d,%.4f,%.4f,%.4f,%.4f", ids[record], origins[record], destinations[record],
+          spawnTimes[record], entryTimes[record], exitTimes[record], stoppedTimes[record]));
+
+  }
+
+}
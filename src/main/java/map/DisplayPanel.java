@@ -14,8 +14,8 @@ import java.util.concurrent.TimeUnit;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 13.3,
-    lastModified = "05/11/2020",
+    currentRevision = 21.1,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class DisplayPanel extends JPanel implements Runnable {
@@ -24,29 +24,102 @@ public class DisplayPanel extends JPanel implements Runnable {
   public static final String PEDESTRIAN_IMAGE_FILE_NAME = "Pedestrian.png";
   public static final String BACKGROUND_IMAGE_FILE_NAME = "Background_final.png";
 
-  private final Crossroad crossroad;
+  /**
+   * how often the recording progress is reported, in milliseconds
+   */
+  public static final long REPORT_INTERVAL = 1000;
+
+  /**
+   * how many times per second the display samples the latest Snapshot
+   */
+  public static final int REFRESH_RATE = 60;
+
+  /**
+   * how many times per second a Snapshot is published in max speed mode
+   */
+  public static final int MAX_SPEED_SAMPLE_RATE = 4;
+
+  /**
+   * the most simulated time the animator catches up with in one frame, in seconds, so that a display that falls behind
+   * slows the playback down instead of stepping ever longer
+   */
+  public static final double MAX_ACCUMULATED_TIME = 0.25;
+
+  public static final long NANOSECONDS_PER_SECOND = 1000000000L;
+
+  private final Crossroad crossroad; // null in a replay
+  private final TrajectoryReader replay; // null unless in a replay
   private final ArrayList<Obstacle> obstacles;
   private final boolean record;
   private final int frameNumber;
+  private final FrameWriter frameWriter;
+  private final SnapshotBuffer snapshots;
+  private final TickProfiler profiler;
   private int frameCount;
   private double timeElapsed = 0.;
-  private boolean completed;
+  private long tickCount = 0;
+  private volatile boolean completed;
+  private long displayedTickCount; // only touched by the event dispatch thread
+  private long reportTime;
+  private long reportNumWritten;
 
   private BufferedImage carImage;
   private BufferedImage pedestrianImage;
   private BufferedImage backgroundImage;
 
+  private SpriteAtlas carSprites; // used by the EDT
+  private SpriteAtlas pedestrianSprites;
+  private final SpriteAtlas recordCarSprites; // used by the animator thread
+  private final SpriteAtlas recordPedestrianSprites;
+
   /**
    *
-   * @param record whether or not the board is recorded by frame
+   * @param record whether or not the board is recorded by frame, into one PNG file per frame
    * @param frameNumber total number of frames. insignificant if record is set to false
    */
   public DisplayPanel(Crossroad crossroad, boolean record, int frameNumber) {
+    this(crossroad, record, frameNumber, record ? new PngFrameSink(frameNumber) : null);
+  }
+
+  /**
+   *
+   * @param record whether or not the board is recorded by frame
+   * @param frameNumber total number of frames. insignificant if record is set to false
+   * @param frameSink where the recorded frames are written, such as a PngFrameSink or a RawFrameSink of the size of the
+   * panel. insignificant if record is set to false
+   */
+  public DisplayPanel(Crossroad crossroad, boolean record, int frameNumber, FrameSink frameSink) {
+    this(crossroad, null, record, frameNumber, frameSink);
+  }
+
+  /**
+   * replays a run logged by a TrajectoryLog instead of simulating it, one logged tick per interval
+   *
+   * @param replay the log, before its first tick
+   * @param record whether or not the replay is recorded by frame
+   * @param frameNumber total number of frames. insignificant if record is set to false
+   * @param frameSink where the recorded frames are written. insignificant if record is set to false
+   */
+  public DisplayPanel(TrajectoryReader replay, boolean record, int frameNumber, FrameSink frameSink) {
+    this(null, replay, record, frameNumber, frameSink);
+  }
+
+  private DisplayPanel(Crossroad crossroad, TrajectoryReader replay, boolean record, int frameNumber,
+                       FrameSink frameSink) {
 
     setPreferredSize(new Dimension((int)Math.round(Main.PANEL_ALONG * Main.PIXELS_PER_METER),
         (int)Math.round(Main.PANEL_ACROSS * Main.PIXELS_PER_METER)));
 
     this.crossroad = crossroad;
+    this.replay = replay;
+
+    if(crossroad != null && crossroad.getMetrics() == null)
+      crossroad.setMetrics(new CrossroadMetrics(crossroad.getTotalNumVehicles()));
+
+    profiler = new TickProfiler();
+    profiler.register("DisplayPanel");
+
+    if(crossroad != null) crossroad.setProfiler(profiler);
 
     obstacles = new ArrayList<>();
 
@@ -77,9 +150,19 @@ public class DisplayPanel extends JPanel implements Runnable {
     this.record = record;
     this.frameNumber = frameNumber;
 
+    frameWriter = record ? new FrameWriter(frameSink, (int)Math.round(Main.PANEL_ALONG * Main.PIXELS_PER_METER),
+        (int)Math.round(Main.PANEL_ACROSS * Main.PIXELS_PER_METER)) : null;
+
+    snapshots = new SnapshotBuffer();
+
+    recordCarSprites = record ? new SpriteAtlas(carImage, null) : null;
+    recordPedestrianSprites = record ? new SpriteAtlas(pedestrianImage, null) : null;
+
     frameCount = 0;
     completed = false;
 
+    if(replay != null) replayTick();
+
   }
 
   public void addObstacle(Obstacle obstacle) {
@@ -96,10 +179,21 @@ public class DisplayPanel extends JPanel implements Runnable {
 
   public void passTime(double factor) {
 
+    if(replay != null) {
+      replayTick();
+      return;
+    }
+
+    profiler.beginTick(crossroad);
+
     crossroad.passTime(factor);
     obstacles.forEach(obstacle -> obstacle.passTime(factor));
 
+    profiler.mark(TickProfiler.OBSTACLES);
+    profiler.endTick(crossroad);
+
     timeElapsed += Main.INTERVAL * factor;
+    tickCount++;
 
     if(crossroad.completed()) {
       System.out.println(record ? "IMAGES GENERATION COMPLETED." : "SIMULATION COMPLETED.");
@@ -108,68 +202,126 @@ public class DisplayPanel extends JPanel implements Runnable {
 
   }
 
+  /**
+   * moves the replay to its next tick
+   */
+  private void replayTick() {
+
+    try {
+
+      if(!replay.advance()) {
+        System.out.println(record ? "IMAGES GENERATION COMPLETED." : "REPLAY COMPLETED.");
+        completed = true;
+        return;
+      }
+
+    } catch(IOException e) {
+      System.out.printf("ERROR READING TRAJECTORY LOG: %s\n", e.getMessage());
+      completed = true;
+      return;
+    }
+
+    timeElapsed = replay.getTimeElapsed();
+    tickCount = replay.getTickCount();
+
+  }
+
+  /**
+   * moves the replay to the tick requested by the timeline through Frame.seekTick, if any
+   *
+   * @return whether the replay was moved
+   */
+  private boolean seekReplay() {
+
+    long seekTick = Frame.seekTick;
+
+    if(replay == null || seekTick < 0) return false;
+
+    Frame.seekTick = -1;
+
+    try {
+      replay.seek(seekTick);
+    } catch(IOException e) {
+      System.out.printf("ERROR READING TRAJECTORY LOG: %s\n", e.getMessage());
+      completed = true;
+      return false;
+    }
+
+    timeElapsed = replay.getTimeElapsed();
+    tickCount = replay.getTickCount();
+
+    return true;
+  }
+
+  /**
+   *
+   * @return the tick count of the Snapshot painted last; must be called on the event dispatch thread
+   */
+  public long getDisplayedTickCount() {
+    return displayedTickCount;
+  }
+
   public void addNotify() {
 
     super.addNotify();
 
+    carSprites = new SpriteAtlas(carImage, getGraphicsConfiguration());
+    pedestrianSprites = new SpriteAtlas(pedestrianImage, getGraphicsConfiguration());
+
     Thread animator = new Thread(this);
     animator.start();
 
-  }
+    Timer refreshTimer = new Timer(1000 / REFRESH_RATE, event -> repaint());
+    refreshTimer.start();
 
-  public void paintComponent(Graphics graphics) {
+  }
 
-    super.paintComponent(graphics);
+  /**
+   * Captures the state left by the last interval into the back Snapshot, records it if needed, and publishes it
+   * Only called on the animator thread, which is the only one touching the Crossroad and the obstacles
+   */
+  private void publishSnapshot() {
 
-    Graphics2D graphics2D = (Graphics2D)graphics;
+    Snapshot snapshot = snapshots.getBack();
 
-    if(record) {
+    if(replay != null) {
+      replay.read(snapshot);
+    } else {
+      snapshot.capture(crossroad, obstacles, timeElapsed, tickCount);
+    }
 
-      BufferedImage imageBuffer = new BufferedImage(this.getWidth(), this.getHeight(), BufferedImage.TYPE_INT_RGB);
-      Graphics2D imageBufferGraphics2D = imageBuffer.createGraphics();
+    if(record) recordFrame(snapshot);
 
-      imageBufferGraphics2D.drawImage(backgroundImage, 0, 0,
-          (int)Math.round(Main.PANEL_ALONG * Main.PIXELS_PER_METER),
-          (int)Math.round(Main.PANEL_ACROSS * Main.PIXELS_PER_METER), this);
+    snapshots.publish();
 
-      try {
-        crossroad.getVehicles().forEach((vehicle) -> drawVehicle(imageBufferGraphics2D, vehicle));
-      } catch(Exception ignored) {
-      }
+  }
 
-      obstacles.forEach((obstacle) -> drawObstacle(imageBufferGraphics2D, obstacle));
+  /**
+   * paints the latest Snapshot, without ever waiting for the animator thread;
+   * while recording, the frames are rendered by the animator thread instead, see recordFrame()
+   */
+  public void paintComponent(Graphics graphics) {
 
-      graphics2D.drawImage(imageBuffer, 0, 0, this);
+    super.paintComponent(graphics);
 
-      File file = new File(Main.OUTPUT_ADDRESS
-          + String.format("FRAME_%0" + Integer.toString(frameNumber).length() + "d.png", frameCount));
+    profiler.beginPaint();
 
-      try {
-        ImageIO.write(imageBuffer, "PNG", file);
-      } catch (IOException e) {
-        System.out.printf("ERROR WRITING IMAGE: %s", e.getMessage());
-        System.exit(0);
-      }
+    Snapshot snapshot = snapshots.getLatest();
 
-    } else {
+    paintScene((Graphics2D)graphics, snapshot, carSprites, pedestrianSprites);
 
-      graphics2D.drawImage(backgroundImage, 0, 0,
-          (int)Math.round(Main.PANEL_ALONG * Main.PIXELS_PER_METER),
-          (int)Math.round(Main.PANEL_ACROSS * Main.PIXELS_PER_METER), this);
+    profiler.endPaint(snapshot.getNumBodies());
 
-      try {
-        crossroad.getVehicles().forEach(vehicle -> drawVehicle(graphics2D, vehicle));
-      } catch(Exception ignored) {
-      }
+    displayedTickCount = snapshot.getTickCount();
 
-      obstacles.forEach((obstacle) -> drawObstacle(graphics2D, obstacle));
+    Toolkit.getDefaultToolkit().sync();
 
-    }
+    if(record) return;
 
     frameCount++;
 
     if(frameCount == frameNumber) {
-      System.out.println(record ? "IMAGES GENERATION COMPLETED." : "SIMULATION COMPLETED.");
+      System.out.println("SIMULATION COMPLETED.");
       completed = true;
     }
 
@@ -177,25 +329,92 @@ public class DisplayPanel extends JPanel implements Runnable {
 
   /**
    *
-   * @param graphics2D the graphics object to draw vehicles on
-   * @param vehicle the vehicle to draw
+   * @param graphics2D the graphics object to draw the background, the vehicles and the obstacles on
+   * @param snapshot the state to be drawn
+   * @param vehicleSprites the sprites of the vehicles, owned by the calling thread
+   * @param obstacleSprites the sprites of the obstacles, owned by the calling thread
    */
-  private void drawVehicle(Graphics2D graphics2D, Vehicle vehicle) {
-    drawBody(graphics2D, vehicle, vehicle.getColor(), carImage);
+  private void paintScene(Graphics2D graphics2D, Snapshot snapshot, SpriteAtlas vehicleSprites,
+                          SpriteAtlas obstacleSprites) {
+
+    graphics2D.drawImage(backgroundImage, 0, 0,
+        (int)Math.round(Main.PANEL_ALONG * Main.PIXELS_PER_METER),
+        (int)Math.round(Main.PANEL_ACROSS * Main.PIXELS_PER_METER), this);
+
+    int color = 0;
+
+    for(int index = 0; index < snapshot.getNumBodies(); index++) {
+
+      // consecutive vehicles often share their color
+
+      if(index == 0 || snapshot.getColor(index) != color) {
+        color = snapshot.getColor(index);
+        graphics2D.setColor(new Color(color));
+      }
+
+      (index < snapshot.getNumVehicles() ? vehicleSprites : obstacleSprites).draw(graphics2D,
+          snapshot.getXPosition(index), snapshot.getYPosition(index), snapshot.getOrientation(index),
+          snapshot.getAlong(index), snapshot.getAcross(index));
+
+    }
+
   }
 
-  private void drawObstacle(Graphics2D graphics2D, Obstacle obstacle) {
-    drawBody(graphics2D, obstacle, obstacle.getColor(), pedestrianImage);
+  /**
+   * Renders a Snapshot into an image of the FrameWriter and queues it for encoding, one frame per interval
+   * Called on the animator thread, which therefore waits whenever the encoders fall behind, while the EDT keeps painting
+   */
+  private void recordFrame(Snapshot snapshot) {
+
+    try {
+
+      BufferedImage image = frameWriter.acquire();
+      Graphics2D imageGraphics2D = image.createGraphics();
+
+      paintScene(imageGraphics2D, snapshot, recordCarSprites, recordPedestrianSprites);
+      imageGraphics2D.dispose();
+
+      frameWriter.submit(image, frameCount++);
+
+    } catch(IOException e) {
+      System.out.printf("ERROR WRITING IMAGE: %s", e.getMessage());
+      System.exit(0);
+    } catch(InterruptedException e) {
+      completed = true;
+      return;
+    }
+
+    if(frameCount == frameNumber) {
+      System.out.println("IMAGES GENERATION COMPLETED.");
+      completed = true;
+    }
+
+    long currentTime = System.currentTimeMillis();
+
+    if(currentTime - reportTime >= REPORT_INTERVAL) {
+
+      long numWritten = frameWriter.getNumWritten();
+
+      System.out.println(String.format("RECORDING: %.1f FRAMES PER SECOND, QUEUE DEPTH %d",
+          (numWritten - reportNumWritten) * Main.MILLISECONDS_PER_SECOND / (currentTime - reportTime),
+          frameWriter.getQueueDepth()));
+
+      reportTime = currentTime;
+      reportNumWritten = numWritten;
+
+    }
+
   }
 
   /**
+   * draws a single body by rotating the graphics and scaling the image; the display itself draws through SpriteAtlas
    *
    * @param graphics2D graphics2D
    * @param body the rectangle block to be colored
    * @param color the base, supplementary color of the rectangle
    * @param bufferedImage the image to be drawn onto the rectangle
    */
-  public void drawBody(Graphics2D graphics2D, Body body, Color color, BufferedImage bufferedImage) {
+  public static void drawBody(Graphics2D graphics2D, Body body, Color color, BufferedImage bufferedImage) {
 
     AffineTransform originalTransform = graphics2D.getTransform();
 
@@ -216,42 +435,95 @@ public class DisplayPanel extends JPanel implements Runnable {
         null);
 
     graphics2D.setTransform(originalTransform);
-    Toolkit.getDefaultToolkit().sync();
 
   }
 
+  /**
+   * Steps the simulation by Main.INTERVAL only, whatever the play speed, so that the results do not depend on it:
+   * the wall time elapsed since the last frame, times Frame.factor, is accumulated and as many intervals as it holds are
+   * simulated before the next Snapshot is published
+   * In max speed mode, the simulation steps as fast as the CPU allows and only publishes MAX_SPEED_SAMPLE_RATE Snapshots
+   * per second; while recording, every interval is a frame and the pace is set by the encoders
+   * In a replay, a tick requested by the timeline is sought before stepping any further
+   */
   public void run() {
 
-    long startTime, timeDifference, correctedInterval;
+    reportTime = System.currentTimeMillis();
+
+    publishSnapshot();
 
-    startTime = System.currentTimeMillis();
+    long frameTime = System.nanoTime();
+    double accumulator = 0.;
 
     while(!completed) {
 
-      passTime(Frame.factor);
-      repaint();
+      if(seekReplay()) {
+
+        frameTime = System.nanoTime();
+        accumulator = 0.;
+
+      } else if(record) {
 
-      timeDifference = System.currentTimeMillis() - startTime;
-      correctedInterval = (int)Math.round(Main.INTERVAL * Main.MILLISECONDS_PER_SECOND) - timeDifference;
+        passTime(1.);
+
+      } else if(Frame.maxSpeed) {
+
+        long sampleTime = System.nanoTime() + NANOSECONDS_PER_SECOND / MAX_SPEED_SAMPLE_RATE;
+
+        while(!completed && System.nanoTime() < sampleTime) passTime(1.);
+
+        frameTime = System.nanoTime();
+        accumulator = 0.;
+
+      } else {
+
+        long currentTime = System.nanoTime();
+
+        accumulator = Math.min(accumulator + (double)(currentTime - frameTime) / NANOSECONDS_PER_SECOND * Frame.factor,
+            MAX_ACCUMULATED_TIME);
+        frameTime = currentTime;
+
+        while(!completed && accumulator >= Main.INTERVAL) {
+          passTime(1.);
+          accumulator -= Main.INTERVAL;
+        }
 
-      // I don't think this would happen
-      if(correctedInterval < 0) {
-        System.out.printf("WARNING: INTERVAL TOO SHORT: %d.\n", correctedInterval);
-        correctedInterval = 1;
       }
 
+      publishSnapshot();
+
+      if(record || Frame.maxSpeed) continue;
+
+      long sleepTime = frameTime + NANOSECONDS_PER_SECOND / REFRESH_RATE - System.nanoTime();
+
+      if(sleepTime <= 0) continue;
+
       try {
-        TimeUnit.MILLISECONDS.sleep(correctedInterval);
+        TimeUnit.NANOSECONDS.sleep(sleepTime);
       } catch (InterruptedException e) {
         String msg = String.format("ERROR RUNNING THREAD: %s", e.getMessage());
         JOptionPane.showMessageDialog(this, msg, "Error", JOptionPane.ERROR_MESSAGE);
       }
 
-      startTime = System.currentTimeMillis();
+    }
+
+    if(record) {
+      try {
+        frameWriter.close();
+      } catch(IOException | InterruptedException e) {
+        System.out.printf("ERROR WRITING IMAGE: %s", e.getMessage());
+      }
+      System.out.println(String.format("%d FRAMES WRITTEN", frameWriter.getNumWritten()));
+    }
 
+    if(replay != null) {
+      System.out.println(String.format("TOTAL TIME REPLAYED: %.2f SECONDS", timeElapsed));
+    } else {
+      System.out.println(String.format("TOTAL TIME ELAPSED FOR %d CARS: %.2f SECONDS", crossroad.getTotalNumVehicles(), timeElapsed));
+      crossroad.getMetrics().writeReport(System.out);
     }
 
-    System.out.println(String.format("TOTAL TIME ELAPSED FOR %d CARS: %.2f SECONDS", crossroad.getTotalNumVehicles(), timeElapsed));
+    profiler.writeReport(System.out);
 
     try {
       TimeUnit.SECONDS.sleep(2);
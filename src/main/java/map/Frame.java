@@ -7,8 +7,8 @@ import java.util.ArrayList;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 5.1,
-    lastModified = "05/09/2020",
+    currentRevision = 5.5,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Frame extends JFrame {
@@ -17,7 +17,9 @@ public class Frame extends JFrame {
   private final ControlPanel controlPanel;
   private final boolean record;
 
-  public static double factor = 1.;
+  public static volatile double factor = 1.; // the play speed, in simulated seconds per second
+  public static volatile boolean maxSpeed = false; // whether the simulation steps as fast as it can
+  public static volatile long seekTick = -1; // the tick a replay is asked to seek to, -1 if none
 
   public Frame(Crossroad crossroad, boolean record, int frameNumber) {
     this.record = record;
@@ -25,6 +27,34 @@ public class Frame extends JFrame {
     controlPanel = new ControlPanel();
   }
 
+  /**
+   *
+   * @param frameSink where the recorded frames are written, see DisplayPanel
+   */
+  public Frame(Crossroad crossroad, boolean record, int frameNumber, FrameSink frameSink) {
+    this.record = record;
+    displayPanel = new DisplayPanel(crossroad, record, frameNumber, frameSink);
+    controlPanel = new ControlPanel();
+  }
+
+  /**
+   *
+   * @param replay the trajectory log to be replayed, see DisplayPanel
+   */
+  public Frame(TrajectoryReader replay, boolean record, int frameNumber, FrameSink frameSink) {
+    this.record = record;
+    displayPanel = new DisplayPanel(replay, record, frameNumber, frameSink);
+    controlPanel = new ControlPanel();
+
+    if(record) return;
+
+    controlPanel.enableTimeline(replay.getFirstTickCount(), replay.getLastTickCount());
+
+    Timer timelineTimer = new Timer(1000 / DisplayPanel.REFRESH_RATE,
+        event -> controlPanel.setTimelineTick(displayPanel.getDisplayedTickCount()));
+    timelineTimer.start();
+  }
+
   public void addObstacle(Obstacle obstacle) {
     displayPanel.addObstacle(obstacle);
   }
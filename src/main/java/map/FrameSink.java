@@ -0,0 +1,37 @@
+package map;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public abstract class FrameSink {
+
+  /**
+   * The FrameSink is where a FrameWriter puts the recorded frames
+   *
+   * @param image the frame, of type BufferedImage.TYPE_INT_RGB; it is given back to the pool once this returns
+   * @param frameIndex the index of the frame
+   */
+  public abstract void write(BufferedImage image, int frameIndex) throws IOException;
+
+  /**
+   *
+   * @return whether or not write() may be called by several encoder threads at once
+   */
+  public boolean isConcurrent() {
+    return false;
+  }
+
+  /**
+   * called once every frame is written
+   */
+  public void close() throws IOException {
+  }
+
+}
@@ -0,0 +1,193 @@
+package map;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 3,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class FrameWriter {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 32;
+
+  private static final int END_OF_STREAM = -1;
+
+  private final int width;
+  private final int height;
+  private final FrameSink frameSink;
+  private final BlockingQueue<BufferedImage> freeImages;
+  private final BlockingQueue<PendingFrame> pendingFrames;
+  private final Thread[] encoders;
+  private final AtomicLong numWritten;
+  private volatile Throwable failure; // the first frame that could not be written, null if none
+
+  private static class PendingFrame {
+
+    private final BufferedImage image;
+    private final int frameIndex;
+
+    public PendingFrame(BufferedImage image, int frameIndex) {
+      this.image = image;
+      this.frameIndex = frameIndex;
+    }
+
+  }
+
+  /**
+   * The FrameWriter hands recorded frames to a FrameSink on its own encoder threads
+   * The images are taken from a fixed pool and given back once written, so that no image is allocated per frame, and
+   * the thread that renders the frames waits in acquire() or submit() whenever the encoders fall behind
+   *
+   * @param frameSink where the frames are written
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param numEncoders the number of encoder threads; only one is used if the FrameSink is not concurrent
+   * @param queueCapacity the number of frames that may wait to be encoded
+   */
+  public FrameWriter(FrameSink frameSink, int width, int height, int numEncoders, int queueCapacity) {
+
+    this.frameSink = frameSink;
+    this.width = width;
+    this.height = height;
+
+    if(!frameSink.isConcurrent()) numEncoders = 1;
+
+    // every image is either free, being rendered, waiting or being encoded
+
+    freeImages = new ArrayBlockingQueue<>(queueCapacity + numEncoders + 1);
+    for(int i = 0; i < queueCapacity + numEncoders + 1; i++)
+      freeImages.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+
+    pendingFrames = new ArrayBlockingQueue<>(queueCapacity);
+
+    numWritten = new AtomicLong(0);
+
+    encoders = new Thread[numEncoders];
+
+    for(int i = 0; i < numEncoders; i++) {
+      encoders[i] = new Thread(this::encode, "FrameWriter-" + i);
+      encoders[i].setDaemon(true);
+      encoders[i].start();
+    }
+
+  }
+
+  public FrameWriter(FrameSink frameSink, int width, int height) {
+    this(frameSink, width, height, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * writes PNG files, as record mode always did
+   *
+   * @param frameNumber total number of frames, which sets the number of digits of the file names
+   */
+  public FrameWriter(int width, int height, int frameNumber) {
+    this(new PngFrameSink(frameNumber), width, height);
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   *
+   * @return a free image of the pool, waiting for one if all are in use
+   */
+  public BufferedImage acquire() throws InterruptedException {
+    return freeImages.take();
+  }
+
+  /**
+   * queues an image for encoding, waiting for room if the queue is full; the image must not be touched afterwards
+   *
+   * @param image an image obtained from acquire()
+   * @param frameIndex the index of the frame, which names the file
+   */
+  public void submit(BufferedImage image, int frameIndex) throws IOException, InterruptedException {
+
+    checkFailure();
+
+    pendingFrames.put(new PendingFrame(image, frameIndex));
+
+  }
+
+  /**
+   *
+   * @return the number of frames waiting to be encoded
+   */
+  public int getQueueDepth() {
+    return pendingFrames.size();
+  }
+
+  /**
+   *
+   * @return the number of frames written successfully
+   */
+  public long getNumWritten() {
+    return numWritten.get();
+  }
+
+  private void checkFailure() throws IOException {
+
+    Throwable failure = this.failure;
+
+    if(failure instanceof IOException) throw (IOException)failure;
+    if(failure != null) throw new IOException("FRAME WRITER FAILED", failure);
+
+  }
+
+  private void encode() {
+
+    try {
+
+      while(true) {
+
+        PendingFrame frame = pendingFrames.take();
+
+        if(frame.frameIndex == END_OF_STREAM) return;
+
+        // whatever the FrameSink throws, the image goes back to the pool, or the renderer would wait for it forever
+
+        try {
+          frameSink.write(frame.image, frame.frameIndex);
+          numWritten.incrementAndGet();
+        } catch(Throwable e) {
+          if(failure == null) failure = e;
+        } finally {
+          freeImages.add(frame.image);
+        }
+
+      }
+
+    } catch(InterruptedException ignored) {
+    }
+
+  }
+
+  /**
+   * waits until every submitted frame is written, stops the encoders and closes the FrameSink
+   */
+  public void close() throws IOException, InterruptedException {
+
+    for(int i = 0; i < encoders.length; i++) pendingFrames.put(new PendingFrame(null, END_OF_STREAM));
+
+    for(Thread encoder: encoders) encoder.join();
+
+    frameSink.close();
+
+    checkFailure();
+
+  }
+
+}
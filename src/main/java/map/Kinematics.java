@@ -0,0 +1,93 @@
+package map;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class Kinematics {
+
+  /**
+   * The Kinematics class integrates bodies in Cartesian components: velocities and accelerations are added component by
+   * component, and the only square root is taken when a speed actually has to be capped
+   */
+  private Kinematics() {
+  }
+
+  /**
+   *
+   * @param xComponent the horizontal component of the velocity
+   * @param yComponent the vertical component of the velocity
+   * @param maxSpeed the maximum magnitude of the velocity
+   * @return the factor the velocity has to be scaled by so that its magnitude does not exceed maxSpeed
+   */
+  public static double capFactor(double xComponent, double yComponent, double maxSpeed) {
+
+    double squaredSpeed = xComponent * xComponent + yComponent * yComponent;
+
+    return squaredSpeed > maxSpeed * maxSpeed ? maxSpeed / Math.sqrt(squaredSpeed) : 1;
+  }
+
+  /**
+   * integrates the velocity and then the position of a row of a VehicleStore over one interval,
+   * using the acceleration stored in the row
+   *
+   * @param vehicles the VehicleStore
+   * @param index the index of the row
+   * @param interval the length of the interval
+   * @param maxSpeed the maximum magnitude of the velocity
+   */
+  public static void integrate(VehicleStore vehicles, int index, double interval, double maxSpeed) {
+
+    double xVelocity = vehicles.getXVelocity(index) + vehicles.getXAcceleration(index) * interval;
+    double yVelocity = vehicles.getYVelocity(index) + vehicles.getYAcceleration(index) * interval;
+
+    double factor = capFactor(xVelocity, yVelocity, maxSpeed);
+
+    xVelocity *= factor;
+    yVelocity *= factor;
+
+    vehicles.setVelocity(index, xVelocity, yVelocity);
+    vehicles.setPosition(index,
+        vehicles.getXPosition(index) + xVelocity * interval,
+        vehicles.getYPosition(index) + yVelocity * interval);
+
+  }
+
+  /**
+   * integrates the velocity and then the position of a Body over one interval
+   *
+   * @param body the Body
+   * @param acceleration the acceleration of the Body during the interval
+   * @param interval the length of the interval
+   * @param maxSpeed the maximum magnitude of the velocity
+   */
+  public static void integrate(Body body, Acceleration acceleration, double interval, double maxSpeed) {
+
+    double xVelocity = body.getVelocity().getXMagnitude() + acceleration.getXMagnitude() * interval;
+    double yVelocity = body.getVelocity().getYMagnitude() + acceleration.getYMagnitude() * interval;
+
+    double factor = capFactor(xVelocity, yVelocity, maxSpeed);
+
+    body.setVelocity(Velocity.velocityFromComponents(xVelocity * factor, yVelocity * factor));
+    move(body, interval);
+
+  }
+
+  /**
+   * moves a Body at its current velocity over one interval
+   *
+   * @param body the Body
+   * @param interval the length of the interval
+   */
+  public static void move(Body body, double interval) {
+
+    body.setPosition(new Position(
+        body.getPosition().getXPosition() + body.getVelocity().getXMagnitude() * interval,
+        body.getPosition().getYPosition() + body.getVelocity().getYMagnitude() * interval));
+
+  }
+
+}
@@ -6,8 +6,8 @@ import java.util.ArrayList;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "02/14/2020",
-    currentRevision = 4.1,
-    lastModified = "05/07/2020",
+    currentRevision = 5,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Lane {
@@ -30,6 +30,16 @@ public class Lane {
   private double orientation;
   private final Crossroad crossroad;
 
+  // the geometry of the Lane and of its range of detection in the frame of the Lane, see updateGeometry()
+
+  private double cosine;
+  private double sine;
+  private double halfAlong;
+  private double halfAcross;
+  private double detectionXPosition;
+  private double detectionYPosition;
+  private double detectionHalfAcross;
+
   public Lane(Size size, Position position, double orientation, Crossroad crossroad) {
 
     this.size = size;
@@ -37,6 +47,27 @@ public class Lane {
     this.orientation = orientation;
     this.crossroad = crossroad;
 
+    updateGeometry();
+
+  }
+
+  /**
+   * precomputes the rectangle of the Lane and the rectangle of its range of detection so that the containment tests
+   * only project the tested point onto the axes of the Lane
+   * This is called by the setters; call it again after changing RIGHT_DETECTION or mutating the Size or the Position
+   */
+  public void updateGeometry() {
+
+    Position detectionPosition = getDetectionPosition();
+
+    cosine = Math.cos(orientation);
+    sine = Math.sin(orientation);
+    halfAlong = size.getAlong() / 2;
+    halfAcross = size.getAcross() / 2;
+    detectionXPosition = detectionPosition.getXPosition();
+    detectionYPosition = detectionPosition.getYPosition();
+    detectionHalfAcross = getDetectionSize().getAcross() / 2;
+
   }
 
   public Size getSize() {
@@ -135,14 +166,17 @@ public class Lane {
 
   public void setSize(Size size) {
     this.size = size;
+    updateGeometry();
   }
 
   public void setPosition(Position position) {
     this.position = position;
+    updateGeometry();
   }
 
   public void setOrientation(double orientation) {
     this.orientation = orientation;
+    updateGeometry();
   }
 
   public Crossroad getCrossroad() {
@@ -150,50 +184,55 @@ public class Lane {
   }
 
   /**
+   * A point is contained if the sum of its distances to the four sides of the rectangle exceeds the length plus the width
+   * by at most Main.THRESHOLD; in the frame of the rectangle, that excess is twice the distance by which the point lies
+   * outside along each axis
    *
-   * @param otherPosition the position to be tested for
-   * @return whether or not the rectangular region of this Lane contains the Position
+   * @param xDistance the distance between the point and the center of the rectangle, along the Lane
+   * @param yDistance the distance between the point and the center of the rectangle, across the Lane
+   * @param halfAlong half of the length of the rectangle
+   * @param halfAcross half of the width of the rectangle
+   * @return whether or not the rectangle contains the point
    */
-  public boolean onLane(Position otherPosition) {
+  private static boolean contains(double xDistance, double yDistance, double halfAlong, double halfAcross) {
+    return 2 * (Math.max(Math.abs(xDistance) - halfAlong, 0) + Math.max(Math.abs(yDistance) - halfAcross, 0)) <= Main.THRESHOLD;
+  }
 
-    ArrayList<Position> cornerPositions = getCornerPositions();
+  /**
+   *
+   * @param xPosition the horizontal position of the point
+   * @param yPosition the vertical position of the point
+   * @return whether or not the rectangular region of this Lane contains the point
+   */
+  public boolean onLane(double xPosition, double yPosition) {
 
-    double maxLength = 0.;
-    int maxIndex = 0;
+    double xDifference = xPosition - position.getXPosition();
+    double yDifference = yPosition - position.getYPosition();
 
-    for(int i=1; i < 4; i++) if(cornerPositions.get(0).distanceTo(cornerPositions.get(i)) > maxLength) {
-      maxLength = cornerPositions.get(0).distanceTo(cornerPositions.get(i));
-      maxIndex = i;
-    }
+    return contains(xDifference * cosine + yDifference * sine, yDifference * cosine - xDifference * sine, halfAlong, halfAcross);
+  }
 
-    int index0;
-    int index1;
-    int index2;
-    int index3;
-
-    if(maxIndex == 1) {
-      index0 = 0;
-      index1 = 2;
-      index2 = 1;
-      index3 = 3;
-    } else if(maxIndex == 2) {
-      index0 = 0;
-      index1 = 1;
-      index2 = 2;
-      index3 = 3;
-    } else {
-      index0 = 0;
-      index1 = 1;
-      index2 = 3;
-      index3 = 2;
-    }
+  /**
+   *
+   * @param xPosition the horizontal position of the point
+   * @param yPosition the vertical position of the point
+   * @return whether or not the point is in the detection range(including the lane itself)
+   */
+  public boolean inRange(double xPosition, double yPosition) {
 
-    double sumDistances = otherPosition.distanceTo(cornerPositions.get(index0), cornerPositions.get(index1))
-        + otherPosition.distanceTo(cornerPositions.get(index1), cornerPositions.get(index2))
-        + otherPosition.distanceTo(cornerPositions.get(index2), cornerPositions.get(index3))
-        + otherPosition.distanceTo(cornerPositions.get(index3), cornerPositions.get(index0));
+    double xDifference = xPosition - detectionXPosition;
+    double yDifference = yPosition - detectionYPosition;
 
-    return Math.abs(sumDistances - size.getAlong() - size.getAcross()) <= Main.THRESHOLD;
+    return contains(xDifference * cosine + yDifference * sine, yDifference * cosine - xDifference * sine, halfAlong, detectionHalfAcross);
+  }
+
+  /**
+   *
+   * @param otherPosition the position to be tested for
+   * @return whether or not the rectangular region of this Lane contains the Position
+   */
+  public boolean onLane(Position otherPosition) {
+    return onLane(otherPosition.getXPosition(), otherPosition.getYPosition());
   }
 
   /**
@@ -203,8 +242,8 @@ public class Lane {
    * @return whether or not the rectangular region of this Lane contains all points or any point of this body
    */
   public boolean onLane(Body body, boolean needAll) {
-    for(Position otherPosition: body.getCornerPositions()) if(onLane(otherPosition) != needAll) return !needAll;
-    return needAll;
+    return testCorners(false, body.getPosition().getXPosition(), body.getPosition().getYPosition(),
+        body.getVelocity().getXMagnitude(), body.getVelocity().getYMagnitude(), body.getSize().getAlong(), body.getSize().getAcross(), needAll);
   }
 
   /**
@@ -213,57 +252,119 @@ public class Lane {
    * @return whether or not the position is in the detection range(including the lane itself)
    */
   public boolean inRange(Position otherPosition) {
+    return inRange(otherPosition.getXPosition(), otherPosition.getYPosition());
+  }
+
+  /**
+   *
+   * @param body the body to be tested for
+   * @param needAll whether or not all corners need to be in
+   * @return whether or not the range of detection (including the Lane itself) contains all points or any point of this body
+   */
+  public boolean inRange(Body body, boolean needAll) {
+    return testCorners(true, body.getPosition().getXPosition(), body.getPosition().getYPosition(),
+        body.getVelocity().getXMagnitude(), body.getVelocity().getYMagnitude(), body.getSize().getAlong(), body.getSize().getAcross(), needAll);
+  }
 
-    ArrayList<Position> detectionCornerPositions = getDetectionCornerPositions();
+  /**
+   *
+   * @param xPosition the horizontal position of the center of the rectangle to be tested for
+   * @param yPosition the vertical position of the center of the rectangle to be tested for
+   * @param xVelocity the horizontal component of the velocity, which gives the direction the rectangle is facing
+   * @param yVelocity the vertical component of the velocity, which gives the direction the rectangle is facing
+   * @param along the length of the rectangle
+   * @param across the width of the rectangle
+   * @param needAll whether or not all corners need to be in
+   * @return whether or not the range of detection (including the Lane itself) contains all points or any point of the rectangle
+   */
+  public boolean inRange(double xPosition, double yPosition, double xVelocity, double yVelocity,
+                         double along, double across, boolean needAll) {
+    return testCorners(true, xPosition, yPosition, xVelocity, yVelocity, along, across, needAll);
+  }
 
-    double maxLength = 0.;
-    int maxIndex = 0;
+  /**
+   * tests the four corners of a rectangle facing the direction of a velocity; a rectangle at rest faces positive x,
+   * as atan2(0, 0) is 0
+   *
+   * @param detection true to test against the range of detection, false to test against the Lane itself
+   * @return whether or not all corners or any corner of the rectangle are contained
+   */
+  private boolean testCorners(boolean detection, double xPosition, double yPosition, double xVelocity, double yVelocity,
+                              double along, double across, boolean needAll) {
 
-    for(int i=1; i < 4; i++) if(detectionCornerPositions.get(0).distanceTo(detectionCornerPositions.get(i)) > maxLength) {
-      maxLength = detectionCornerPositions.get(0).distanceTo(detectionCornerPositions.get(i));
-      maxIndex = i;
-    }
+    double speed = Math.sqrt(xVelocity * xVelocity + yVelocity * yVelocity);
+    double xDirection = speed > 0 ? xVelocity / speed : 1;
+    double yDirection = speed > 0 ? yVelocity / speed : 0;
+
+    // the center and the two half-axes of the rectangle, projected onto the axes of the Lane
+
+    double xDifference = xPosition - (detection ? detectionXPosition : position.getXPosition());
+    double yDifference = yPosition - (detection ? detectionYPosition : position.getYPosition());
+    double centerAlong = xDifference * cosine + yDifference * sine;
+    double centerAcross = yDifference * cosine - xDifference * sine;
+
+    double directionAlong = xDirection * cosine + yDirection * sine;
+    double directionAcross = yDirection * cosine - xDirection * sine;
+
+    double alongAlong = directionAlong * along / 2;
+    double alongAcross = directionAcross * along / 2;
+    double acrossAlong = -directionAcross * across / 2;
+    double acrossAcross = directionAlong * across / 2;
+
+    double limitAcross = detection ? detectionHalfAcross : halfAcross;
+
+    for(int corner = 0; corner < 4; corner++) {
+
+      double alongSign = corner < 2 ? 1 : -1;
+      double acrossSign = corner % 2 == 0 ? 1 : -1;
+
+      boolean contained = contains(
+          centerAlong + alongSign * alongAlong + acrossSign * acrossAlong,
+          centerAcross + alongSign * alongAcross + acrossSign * acrossAcross,
+          halfAlong, limitAcross);
+
+      if(contained != needAll) return !needAll;
 
-    int index0;
-    int index1;
-    int index2;
-    int index3;
-
-    if(maxIndex == 1) {
-      index0 = 0;
-      index1 = 2;
-      index2 = 1;
-      index3 = 3;
-    } else if(maxIndex == 2) {
-      index0 = 0;
-      index1 = 1;
-      index2 = 2;
-      index3 = 3;
-    } else {
-      index0 = 0;
-      index1 = 1;
-      index2 = 3;
-      index3 = 2;
     }
 
-    double sumDistances = otherPosition.distanceTo(detectionCornerPositions.get(index0), detectionCornerPositions.get(index1))
-        + otherPosition.distanceTo(detectionCornerPositions.get(index1), detectionCornerPositions.get(index2))
-        + otherPosition.distanceTo(detectionCornerPositions.get(index2), detectionCornerPositions.get(index3))
-        + otherPosition.distanceTo(detectionCornerPositions.get(index3), detectionCornerPositions.get(index0));
+    return needAll;
+  }
 
-    return Math.abs(sumDistances - getDetectionSize().getAlong() - getDetectionSize().getAcross()) <= Main.THRESHOLD;
+  /**
+   * tests many points against the range of detection in one call
+   *
+   * @param xPositions the horizontal positions of the points
+   * @param yPositions the vertical positions of the points
+   * @param count the number of points to be tested
+   * @param results receives, for each point, whether or not it is in the detection range
+   */
+  public void inRange(double[] xPositions, double[] yPositions, int count, boolean[] results) {
+    for(int i = 0; i < count; i++) results[i] = inRange(xPositions[i], yPositions[i]);
+  }
 
+  /**
+   * tests many points against the Lane itself in one call
+   *
+   * @param xPositions the horizontal positions of the points
+   * @param yPositions the vertical positions of the points
+   * @param count the number of points to be tested
+   * @param results receives, for each point, whether or not it is on the Lane
+   */
+  public void onLane(double[] xPositions, double[] yPositions, int count, boolean[] results) {
+    for(int i = 0; i < count; i++) results[i] = onLane(xPositions[i], yPositions[i]);
   }
 
   /**
+   * tests every vehicle of a VehicleStore against the range of detection in one call
    *
-   * @param body the body to be tested for
+   * @param vehicles the VehicleStore
    * @param needAll whether or not all corners need to be in
-   * @return whether or not the range of detection (including the Lane itself) contains all points or any point of this body
+   * @param results receives, for each row of the VehicleStore, whether or not the vehicle is in range
    */
-  public boolean inRange(Body body, boolean needAll) {
-    for(Position otherPosition: body.getCornerPositions()) if(inRange(otherPosition) != needAll) return !needAll;
-    return needAll;
+  public void inRange(VehicleStore vehicles, boolean needAll, boolean[] results) {
+    for(int index = 0; index < vehicles.size(); index++) results[index] = testCorners(true,
+        vehicles.getXPosition(index), vehicles.getYPosition(index), vehicles.getXVelocity(index), vehicles.getYVelocity(index),
+        vehicles.getAlong(index), vehicles.getAcross(index), needAll);
   }
 
 }
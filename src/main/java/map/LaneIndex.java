@@ -0,0 +1,216 @@
+package map;
+
+import java.util.IdentityHashMap;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1.1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class LaneIndex {
+
+  public static final int INITIAL_CAPACITY = 16;
+
+  private final boolean isAlong;
+  private Vehicle[] vehicles;
+  private double[] keys;
+  private int size;
+
+  /**
+   * The LaneIndex keeps the vehicles occupying a Lane (including its range of detection) sorted by their coordinate
+   * along the Lane, so that the vehicles right before and right after a given vehicle are found by a binary search
+   * It is updated incrementally by the Crossroad as vehicles spawn, move, change state, and leave
+   *
+   * @param isAlong true if the Lane is horizontal and the vehicles are keyed by x, false if keyed by y
+   */
+  public LaneIndex(boolean isAlong) {
+
+    this.isAlong = isAlong;
+
+    vehicles = new Vehicle[INITIAL_CAPACITY];
+    keys = new double[INITIAL_CAPACITY];
+    size = 0;
+
+  }
+
+  public boolean isAlong() {
+    return isAlong;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public Vehicle getVehicle(int rank) {
+    return vehicles[rank];
+  }
+
+  public double getKey(int rank) {
+    return keys[rank];
+  }
+
+  /**
+   *
+   * @param key the coordinate along the Lane
+   * @return the rank of the first entry whose key is not smaller than the given key
+   */
+  public int lowerBound(double key) {
+
+    int low = 0;
+    int high = size;
+
+    while(low < high) {
+      int middle = (low + high) >>> 1;
+      if(keys[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   *
+   * @param vehicle the vehicle to look for
+   * @param key the coordinate the vehicle was indexed with
+   * @return the rank of the vehicle, or -1 if it is not in this index
+   */
+  public int find(Vehicle vehicle, double key) {
+
+    for(int rank = lowerBound(key); rank < size && keys[rank] == key; rank++) if(vehicles[rank] == vehicle) return rank;
+
+    return -1;
+  }
+
+  /**
+   *
+   * @param vehicle the vehicle to add
+   * @param key the coordinate of the vehicle along the Lane
+   */
+  public void insert(Vehicle vehicle, double key) {
+
+    if(size == keys.length) {
+      Vehicle[] newVehicles = new Vehicle[size * 2];
+      double[] newKeys = new double[size * 2];
+      System.arraycopy(vehicles, 0, newVehicles, 0, size);
+      System.arraycopy(keys, 0, newKeys, 0, size);
+      vehicles = newVehicles;
+      keys = newKeys;
+    }
+
+    int rank = lowerBound(key);
+
+    System.arraycopy(vehicles, rank, vehicles, rank + 1, size - rank);
+    System.arraycopy(keys, rank, keys, rank + 1, size - rank);
+
+    vehicles[rank] = vehicle;
+    keys[rank] = key;
+    size++;
+
+  }
+
+  /**
+   * adds an entry after all the others, as when an index is rebuilt in the order it was saved in
+   *
+   * @param vehicle the vehicle to add
+   * @param key the coordinate of the vehicle along the Lane, not smaller than the last key
+   */
+  public void append(Vehicle vehicle, double key) {
+
+    if(size == keys.length) {
+      Vehicle[] newVehicles = new Vehicle[size * 2];
+      double[] newKeys = new double[size * 2];
+      System.arraycopy(vehicles, 0, newVehicles, 0, size);
+      System.arraycopy(keys, 0, newKeys, 0, size);
+      vehicles = newVehicles;
+      keys = newKeys;
+    }
+
+    vehicles[size] = vehicle;
+    keys[size++] = key;
+
+  }
+
+  /**
+   * replaces the entries of this index with those of another one, in the same order
+   *
+   * @param other the index to be copied
+   * @param views the vehicle of this index standing for each vehicle of the other one
+   */
+  public void copyFrom(LaneIndex other, IdentityHashMap<Vehicle, Vehicle> views) {
+
+    vehicles = new Vehicle[Math.max(INITIAL_CAPACITY, other.vehicles.length)];
+    keys = other.keys.clone();
+    size = other.size;
+
+    for(int rank = 0; rank < size; rank++) vehicles[rank] = views.get(other.vehicles[rank]);
+
+  }
+
+  public void remove(int rank) {
+
+    System.arraycopy(vehicles, rank + 1, vehicles, rank, size - rank - 1);
+    System.arraycopy(keys, rank + 1, keys, rank, size - rank - 1);
+
+    vehicles[--size] = null;
+
+  }
+
+  /**
+   * changes the key of an entry and restores the order; vehicles rarely overtake each other, so this is usually O(1)
+   *
+   * @param rank the current rank of the entry
+   * @param key the new coordinate of the vehicle along the Lane
+   * @return the new rank of the entry
+   */
+  public int move(int rank, double key) {
+
+    Vehicle vehicle = vehicles[rank];
+
+    while(rank > 0 && keys[rank - 1] > key) {
+      vehicles[rank] = vehicles[rank - 1];
+      keys[rank] = keys[rank - 1];
+      rank--;
+    }
+
+    while(rank < size - 1 && keys[rank + 1] < key) {
+      vehicles[rank] = vehicles[rank + 1];
+      keys[rank] = keys[rank + 1];
+      rank++;
+    }
+
+    vehicles[rank] = vehicle;
+    keys[rank] = key;
+
+    return rank;
+  }
+
+  /**
+   * brings the entry of a vehicle up to date after it has moved or changed its state
+   *
+   * @param vehicle the vehicle of interest
+   * @param oldKey the coordinate the vehicle is currently indexed with, if it is in this index
+   * @param newKey the current coordinate of the vehicle along the Lane
+   * @param member whether or not the vehicle should be in this index
+   */
+  public void update(Vehicle vehicle, double oldKey, double newKey, boolean member) {
+
+    int rank = find(vehicle, oldKey);
+
+    if(rank >= 0) {
+      if(member) {
+        move(rank, newKey);
+      } else {
+        remove(rank);
+      }
+    } else if(member) {
+      insert(vehicle, newKey);
+    }
+
+  }
+
+}
@@ -0,0 +1,161 @@
+package map;
+
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class LogHistogram {
+
+  /**
+   * each power of two is split into 2 ^ (SUB_BUCKET_BITS - 1) buckets, so that a value is known within about 3%
+   */
+  public static final int SUB_BUCKET_BITS = 6;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+
+  private final double unit;
+  private final long highestUnits;
+  private final long[] counts;
+  private long count;
+  private double sum;
+  private double min;
+  private double max;
+
+  /**
+   * The LogHistogram counts values in buckets whose width grows with the value, as HdrHistogram does: the buckets are
+   * exact up to SUB_BUCKET_COUNT units, then each power of two is split into the same number of buckets
+   * Its memory is fixed when it is created, so recording a value never allocates anything
+   *
+   * @param unit the resolution of the smallest values
+   * @param highest the highest value told apart from the others; higher values are counted with it
+   */
+  public LogHistogram(double unit, double highest) {
+
+    this.unit = unit;
+
+    highestUnits = Math.max(SUB_BUCKET_COUNT, (long)Math.ceil(highest / unit));
+
+    counts = new long[getIndex(highestUnits) + 1];
+
+    reset();
+
+  }
+
+  public void reset() {
+
+    Arrays.fill(counts, 0);
+
+    count = 0;
+    sum = 0;
+    min = Double.NaN;
+    max = Double.NaN;
+
+  }
+
+  private static int getIndex(long units) {
+
+    if(units < SUB_BUCKET_COUNT) return (int)units;
+
+    int magnitude = 63 - Long.numberOfLeadingZeros(units) - SUB_BUCKET_BITS + 1;
+
+    return (int)(magnitude * SUB_BUCKET_HALF + (units >>> magnitude));
+  }
+
+  /**
+   *
+   * @param index the index of a bucket
+   * @return the smallest value counted in the bucket
+   */
+  private double getLowestValue(int index) {
+
+    if(index < SUB_BUCKET_COUNT) return index * unit;
+
+    int magnitude = index / SUB_BUCKET_HALF - 1;
+
+    return ((long)(index - magnitude * SUB_BUCKET_HALF) << magnitude) * unit;
+  }
+
+  /**
+   *
+   * @param index the index of a bucket
+   * @return the value standing for the bucket: its exact value for the buckets one unit wide, else its middle
+   */
+  private double getRepresentativeValue(int index) {
+
+    if(index < SUB_BUCKET_COUNT) return index * unit;
+
+    return getLowestValue(index) + (1L << (index / SUB_BUCKET_HALF - 1)) * unit / 2;
+  }
+
+  /**
+   *
+   * @param value a value, not negative; NaN is ignored
+   */
+  public void record(double value) {
+
+    if(Double.isNaN(value)) return;
+
+    long units = Math.min(highestUnits, (long)(Math.max(0, value) / unit));
+
+    counts[getIndex(units)]++;
+
+    if(count++ == 0 || value < min) min = value;
+    if(count == 1 || value > max) max = value;
+
+    sum += value;
+
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMean() {
+    return count > 0 ? sum / count : Double.NaN;
+  }
+
+  public double getMin() {
+    return min;
+  }
+
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   *
+   * @param percentage between 0 and 100
+   * @return the value standing for the bucket holding the percentile, within the smallest and the largest value recorded
+   */
+  public double getPercentile(double percentage) {
+
+    if(count == 0) return Double.NaN;
+
+    long rank = Math.max(1, (long)Math.ceil(percentage / 100 * count));
+    long cumulated = 0;
+
+    for(int index = 0; index < counts.length; index++) {
+      cumulated += counts[index];
+      if(cumulated >= rank) return Math.min(max, Math.max(min, getRepresentativeValue(index)));
+    }
+
+    return max;
+  }
+
+  /**
+   *
+   * @param name the name of the measured quantity
+   * @return a one-line summary of the distribution
+   */
+  public String toString(String name) {
+    return String.format("%s: COUNT %d, MEAN %.4g, P50 %.4g, P90 %.4g, P99 %.4g, MIN %.4g, MAX %.4g",
+        name, count, getMean(), getPercentile(50), getPercentile(90), getPercentile(99), min, max);
+  }
+
+}
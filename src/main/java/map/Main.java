@@ -9,8 +9,8 @@ import java.util.StringTokenizer;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 9.3,
-    lastModified = "05/10/2020",
+    currentRevision = 12,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Main {
@@ -25,7 +25,7 @@ public class Main {
   public static final Color FAST_VEHICLE_COLOR = new Color(255, 255, 255);
 
   public static final double PIXELS_PER_METER = 80. / 3;
-  public static final double MILLISECONDS_PER_SECOND = 1000; //use this to change display render speed
+  public static final double MILLISECONDS_PER_SECOND = 1000;
 
   public static final double PANEL_ALONG = 1000. / PIXELS_PER_METER;
   public static final double PANEL_ACROSS = 600. / PIXELS_PER_METER;
@@ -34,22 +34,90 @@ public class Main {
   public static final double INTERVAL = 1. / 256;
   public static final double THRESHOLD = 0.5;
 
-  public static void main(String[] args) throws IOException {
+  /**
+   * The input file holds the initial and the total number of cars, optionally followed by the seed of the run
+   *
+   * @param address the address of the input file
+   * @return the initial number of cars, the total number of cars, and the seed, a random one if the file has none
+   */
+  public static long[] readInput(String address) throws IOException {
 
-    BufferedReader br = new BufferedReader(new FileReader(INPUT_ADDRESS + INPUT_FILE_NAME));
+    BufferedReader br = new BufferedReader(new FileReader(address));
 
     StringTokenizer st = new StringTokenizer(br.readLine());
 
-    int initNumCars = Integer.parseInt(st.nextToken());
-    int totalNumCars = Integer.parseInt(st.nextToken());
+    long initNumCars = Integer.parseInt(st.nextToken());
+    long totalNumCars = Integer.parseInt(st.nextToken());
+    long seed = st.hasMoreTokens() ? Long.parseLong(st.nextToken()) : RandomStream.randomSeed();
 
     br.close();
 
-    Crossroad crossRoad = new Crossroad(new Position(300 / PIXELS_PER_METER, 300 / PIXELS_PER_METER),
-        100 / PIXELS_PER_METER, initNumCars, totalNumCars);
+    return new long[] {initNumCars, totalNumCars, seed};
+  }
+
+  /**
+   * Builds the Crossroad of the simulation, with the initial vehicles already spawned
+   *
+   * @param initNumCars the number of cars present at the start
+   * @param totalNumCars the number of cars to be spawned in total
+   * @param seed the seed of the Crossroad
+   * @return the Crossroad ready to be simulated
+   */
+  public static Crossroad createCrossroad(int initNumCars, int totalNumCars, long seed) {
+
+    Crossroad crossRoad = createEmptyCrossroad(initNumCars, totalNumCars, seed);
 
     for(int i=0; i < initNumCars; i++) crossRoad.spawnVehicle("map.Car");
 
+    return crossRoad;
+  }
+
+  /**
+   *
+   * @param initNumCars the number of cars present at the start
+   * @param totalNumCars the number of cars to be spawned in total
+   * @param seed the seed of the Crossroad
+   * @return the Crossroad of the display, without any car yet
+   */
+  public static Crossroad createEmptyCrossroad(int initNumCars, int totalNumCars, long seed) {
+    return new Crossroad(new Position(300 / PIXELS_PER_METER, 300 / PIXELS_PER_METER),
+        100 / PIXELS_PER_METER, initNumCars, totalNumCars, seed);
+  }
+
+  /**
+   * Reads the input file and builds the Crossroad it describes, with the initial vehicles already spawned
+   *
+   * @param address the address of the input file, holding the initial and the total number of cars
+   * @return the Crossroad ready to be simulated
+   */
+  public static Crossroad loadCrossroad(String address) throws IOException {
+
+    long[] input = readInput(address);
+
+    return createCrossroad((int)input[0], (int)input[1], input[2]);
+  }
+
+  /**
+   * Usage: Main [trajectory log file name]
+   * Without any argument, simulates the input file; otherwise replays the trajectory log from the output folder
+   */
+  public static void main(String[] args) throws IOException {
+
+    if(args.length > 0) {
+
+      TrajectoryReader replay = new TrajectoryReader(OUTPUT_ADDRESS + args[0]);
+
+      EventQueue.invokeLater(() -> {
+        Frame frame = new Frame(replay, false, 1048576, null);
+        frame.initUI();
+        frame.setVisible(true);
+      });
+
+      return;
+    }
+
+    Crossroad crossRoad = loadCrossroad(INPUT_ADDRESS + INPUT_FILE_NAME);
+
 //        ArrayList<Obstacle> obstaclesList = new ArrayList<>();
 //
 //        obstaclesList.add(new Pedestrian(new Position(400. / PIXELS_PER_METER, 200. / PIXELS_PER_METER),
@@ -0,0 +1,40 @@
+package map;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public abstract class MicroBenchmark {
+
+  private final String name;
+
+  /**
+   * A MicroBenchmark is one operation measured by BenchmarkRunner, over and over, on one thread
+   * The value returned by each operation is consumed by the runner, so that the JIT compiler cannot discard the work
+   *
+   * @param name the name of the benchmark, as reported
+   */
+  public MicroBenchmark(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * prepares the state of the benchmark; called once before the warm-up, not measured
+   */
+  public void setUp() throws Exception {
+  }
+
+  /**
+   *
+   * @return any value depending on the work done
+   */
+  public abstract long operation();
+
+}
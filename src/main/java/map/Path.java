@@ -6,8 +6,8 @@ import java.util.Arrays;
 @ClassPreamble (
     author = "William Wu",
     date = "01/16/2020",
-    currentRevision = 4.3,
-    lastModified = "04/13/2020",
+    currentRevision = 4.4,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Path {
@@ -56,6 +56,29 @@ public class Path {
     this.positions = positions;
   }
 
+  /**
+   *
+   * @return a copy of this Path, with copies of its positions, at the same point of the Path
+   */
+  public Path copy() {
+
+    ArrayList<Position> copies = new ArrayList<>();
+    for(Position position: positions) copies.add(new Position(position.getXPosition(), position.getYPosition()));
+
+    Path path = new Path(loop, copies);
+    path.currentCount = currentCount;
+
+    return path;
+  }
+
+  public int getCurrentCount() {
+    return currentCount;
+  }
+
+  public void setCurrentCount(int currentCount) {
+    this.currentCount = currentCount;
+  }
+
   public boolean getLoop(){
     return loop;
   }
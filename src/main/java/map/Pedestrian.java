@@ -5,8 +5,8 @@ import java.awt.*;
 @ClassPreamble (
     author = "William Wu",
     date = "01/16/2020",
-    currentRevision = 7.1,
-    lastModified = "05/09/2020",
+    currentRevision = 8,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Pedestrian extends Obstacle {
@@ -73,11 +73,19 @@ public class Pedestrian extends Obstacle {
 
     if(getPosition().onSegment(this.getPath().getCurrentPosition(), this.getPath().getNextPosition())) {
 
-      this.setVelocity(new Velocity(this.getVelocity().getMagnitude(),
-          this.getPath().getCurrentPosition().getOrientationToward(this.getPath().getNextPosition())));
+      Position currentPosition = this.getPath().getCurrentPosition();
+      Position nextPosition = this.getPath().getNextPosition();
 
-      this.setPosition(new Position(getPosition().getXPosition() + this.getVelocity().getXMagnitude() * Main.INTERVAL * factor,
-          getPosition().getYPosition() + this.getVelocity().getYMagnitude() * Main.INTERVAL * factor));
+      double xDifference = nextPosition.getXPosition() - currentPosition.getXPosition();
+      double yDifference = nextPosition.getYPosition() - currentPosition.getYPosition();
+      double distance = Velocity.magnitudeFromComponents(xDifference, yDifference);
+
+      if(distance > 0) {
+        double scale = this.getVelocity().getMagnitude() / distance;
+        this.setVelocity(Velocity.velocityFromComponents(xDifference * scale, yDifference * scale));
+      }
+
+      Kinematics.move(this, Main.INTERVAL * factor);
 
     } else {
 
@@ -0,0 +1,38 @@
+package map;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class PngFrameSink extends FrameSink {
+
+  private final String fileNameFormat;
+
+  /**
+   * The PngFrameSink writes every frame into a PNG file of its own, output/FRAME_N.png
+   *
+   * @param frameNumber total number of frames, which sets the number of digits of the file names
+   */
+  public PngFrameSink(int frameNumber) {
+    fileNameFormat = "FRAME_%0" + Integer.toString(frameNumber).length() + "d.png";
+  }
+
+  @Override
+  public void write(BufferedImage image, int frameIndex) throws IOException {
+    ImageIO.write(image, "PNG", new File(Main.OUTPUT_ADDRESS + String.format(fileNameFormat, frameIndex)));
+  }
+
+  @Override
+  public boolean isConcurrent() {
+    return true;
+  }
+
+}
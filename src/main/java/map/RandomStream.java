@@ -0,0 +1,124 @@
+package map;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class RandomStream {
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(0x2545f4914f6cdd1dL);
+
+  /**
+   *
+   * @return a seed that differs from one call to the next, for runs that do not ask for a particular seed
+   */
+  public static long randomSeed() {
+    return mix64(System.nanoTime() ^ SEED_UNIQUIFIER.getAndAdd(GOLDEN_GAMMA));
+  }
+
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  private static long mixGamma(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    z = (z ^ (z >>> 33)) | 1L;
+    return (Long.bitCount(z ^ (z >>> 1)) < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+  }
+
+  private long seed;
+  private final long gamma;
+
+  /**
+   * The RandomStream is the SplitMix64 generator of java.util.SplittableRandom: the same seed always gives the same
+   * sequence, and split() derives a statistically independent stream, so that every purpose of every simulation draws
+   * from a stream of its own without any contention
+   * Unlike SplittableRandom, its state is two longs that can be read and copied
+   *
+   * @param seed the seed of the stream
+   */
+  public RandomStream(long seed) {
+    this(seed, GOLDEN_GAMMA);
+  }
+
+  /**
+   *
+   * @param seed the current state of the stream
+   * @param gamma the increment of the stream, as returned by getGamma(); must be odd
+   */
+  public RandomStream(long seed, long gamma) {
+    this.seed = seed;
+    this.gamma = gamma;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public long getGamma() {
+    return gamma;
+  }
+
+  /**
+   *
+   * @return a new stream, independent from this one, whose state is derived from the next two values of this one
+   */
+  public RandomStream split() {
+    return new RandomStream(nextLong(), mixGamma(nextSeed()));
+  }
+
+  /**
+   *
+   * @return an exact copy of this stream, which will produce the same values from now on
+   */
+  public RandomStream copy() {
+    return new RandomStream(seed, gamma);
+  }
+
+  private long nextSeed() {
+    return seed += gamma;
+  }
+
+  public long nextLong() {
+    return mix64(nextSeed());
+  }
+
+  /**
+   *
+   * @return a value uniformly distributed in [0, 1)
+   */
+  public double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+
+  /**
+   *
+   * @param bound the exclusive upper bound, positive
+   * @return a value uniformly distributed in [0, bound)
+   */
+  public int nextInt(int bound) {
+
+    int r = (int)(nextLong() >>> 32);
+    int m = bound - 1;
+
+    if((bound & m) == 0) return r & m;
+
+    // reject the candidates that would make the lowest values more likely, as SplittableRandom does
+
+    for(int u = r >>> 1; u + m - (r = u % bound) < 0; u = (int)(nextLong() >>> 33));
+
+    return r;
+  }
+
+}
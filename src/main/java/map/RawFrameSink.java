@@ -0,0 +1,188 @@
+package map;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class RawFrameSink extends FrameSink {
+
+  public static final String DEFAULT_FILE_NAME = "FRAMES.raw";
+
+  public static final int MAGIC = 0x46574152; // "RAWF" in little endian
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 32;
+  public static final int INDEX_ENTRY_SIZE = 12;
+  public static final int INDEX_BATCH = 4096; // the number of index entries written at once
+
+  /**
+   * the size of each mapping of the file, so that the file is not mapped again for every frame
+   */
+  public static final long WINDOW_SIZE = 64L << 20;
+
+  private final int width;
+  private final int height;
+  private final long frameBytes;
+  private final FileChannel channel;
+  private MappedByteBuffer window;
+  private IntBuffer windowPixels; // the window seen as little endian pixels
+  private long windowPosition;
+  private int numFrames;
+  private int[] frameIndices;
+
+  /**
+   * The RawFrameSink appends every frame to one file, as width x height little endian ints 0xXXRRGGBB, that is the bytes
+   * B, G, R and padding of the bgr0 pixel format, copied straight from the raster of the image into a mapping of the file
+   * Layout, all little endian:
+   * header: int MAGIC, int VERSION, int width, int height, int number of frames, int unused, long offset of the index
+   * frames: one after the other from HEADER_SIZE on
+   * index: for each frame in the order of the file, int index of the frame, long offset of the frame
+   *
+   * @param address the address of the file to be written, replaced if it exists
+   * @param width the width of the frames
+   * @param height the height of the frames
+   */
+  public RawFrameSink(String address, int width, int height) throws IOException {
+
+    this.width = width;
+    this.height = height;
+
+    frameBytes = (long)width * height * Integer.BYTES;
+
+    channel = FileChannel.open(Paths.get(address), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    numFrames = 0;
+    frameIndices = new int[1024];
+
+    writeHeader(0);
+
+  }
+
+  public RawFrameSink(int width, int height) throws IOException {
+    this(Main.OUTPUT_ADDRESS + DEFAULT_FILE_NAME, width, height);
+  }
+
+  public int getNumFrames() {
+    return numFrames;
+  }
+
+  /**
+   *
+   * @param frame the position of the frame in the file
+   * @return the offset of that frame
+   */
+  public long getFrameOffset(int frame) {
+    return HEADER_SIZE + frame * frameBytes;
+  }
+
+  private void writeHeader(long indexOffset) throws IOException {
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(numFrames).putInt(0).putLong(indexOffset);
+    header.flip();
+
+    channel.write(header, 0);
+
+  }
+
+  /**
+   * maps the window the next frame is written into, holding as many whole frames as fit in WINDOW_SIZE
+   */
+  private void ensureWindow(long position) throws IOException {
+
+    if(window != null && position + frameBytes <= windowPosition + window.capacity()) return;
+
+    windowPosition = position;
+    window = channel.map(FileChannel.MapMode.READ_WRITE, windowPosition,
+        Math.max(1, WINDOW_SIZE / frameBytes) * frameBytes);
+    windowPixels = window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+  }
+
+  /**
+   * Frames are written one at a time, in the order they are given, into the current window of the file; the window
+   * may reach past the last frame, and close() cuts the file after the index
+   */
+  @Override
+  public void write(BufferedImage image, int frameIndex) throws IOException {
+
+    if(image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB)
+      throw new IOException(String.format("UNEXPECTED FRAME: %dx%d OF TYPE %d", image.getWidth(), image.getHeight(),
+          image.getType()));
+
+    long position = getFrameOffset(numFrames);
+
+    ensureWindow(position);
+
+    windowPixels.position((int)((position - windowPosition) / Integer.BYTES));
+    windowPixels.put(((DataBufferInt)image.getRaster().getDataBuffer()).getData());
+
+    if(numFrames == frameIndices.length) {
+      int[] newFrameIndices = new int[frameIndices.length * 2];
+      System.arraycopy(frameIndices, 0, newFrameIndices, 0, numFrames);
+      frameIndices = newFrameIndices;
+    }
+
+    frameIndices[numFrames++] = frameIndex;
+
+  }
+
+  private long flush(ByteBuffer buffer, long position) throws IOException {
+
+    buffer.flip();
+    while(buffer.hasRemaining()) position += channel.write(buffer, position);
+    buffer.clear();
+
+    return position;
+  }
+
+  /**
+   * appends the index after the last frame, completes the header and cuts the file after the index
+   */
+  @Override
+  public void close() throws IOException {
+
+    long indexOffset = getFrameOffset(numFrames);
+    long position = indexOffset;
+
+    ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_ENTRY_SIZE * INDEX_BATCH).order(ByteOrder.LITTLE_ENDIAN);
+
+    for(int frame = 0; frame < numFrames; frame++) {
+      indexBuffer.putInt(frameIndices[frame]).putLong(getFrameOffset(frame));
+      if(!indexBuffer.hasRemaining()) position = flush(indexBuffer, position);
+    }
+
+    position = flush(indexBuffer, position);
+
+    writeHeader(indexOffset);
+
+    window = null;
+    windowPixels = null;
+
+    // some platforms refuse to truncate a file that is still mapped; the header tells where everything is anyway
+
+    try {
+      channel.truncate(position);
+    } catch(IOException ignored) {
+    }
+
+    channel.close();
+
+  }
+
+}
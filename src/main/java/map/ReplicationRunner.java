@@ -0,0 +1,174 @@
+package map;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class ReplicationRunner {
+
+  public static final int DEFAULT_REPLICATIONS = 500;
+  public static final long DEFAULT_SEED = 0;
+
+  /**
+   * replications that have not completed after this much simulated time are abandoned and reported as incomplete
+   */
+  public static final double MAX_TIME_ELAPSED = 3600.;
+
+  private final int initNumVehicles;
+  private final int totalNumVehicles;
+  private final int replications;
+  private final long seed;
+  private final int threads;
+  private final long[] replicationSeeds;
+
+  private double[] completionTimes;
+  private double[] throughputs;
+  private int numIncomplete;
+
+  /**
+   * The ReplicationRunner simulates many independent Crossroads with the same parameters on a fixed pool of threads
+   * The seeds of the replications are drawn in order from one RandomStream, so the outcome of every replication
+   * only depends on the seed and on its index, not on the scheduling of the threads
+   *
+   * @param initNumVehicles the number of vehicles present at the start of each replication
+   * @param totalNumVehicles the number of vehicles to be spawned in each replication
+   * @param replications the number of replications
+   * @param seed the seed from which the seeds of the replications are derived
+   * @param threads the number of worker threads
+   */
+  public ReplicationRunner(int initNumVehicles, int totalNumVehicles, int replications, long seed, int threads) {
+
+    this.initNumVehicles = initNumVehicles;
+    this.totalNumVehicles = totalNumVehicles;
+    this.replications = replications;
+    this.seed = seed;
+    this.threads = threads;
+
+    RandomStream seedStream = new RandomStream(seed);
+
+    replicationSeeds = new long[replications];
+    for(int i = 0; i < replications; i++) replicationSeeds[i] = seedStream.nextLong();
+
+  }
+
+  /**
+   *
+   * @param replication the index of the replication
+   * @return the seed of the Crossroad of the replication, to reproduce it alone
+   */
+  public long getReplicationSeed(int replication) {
+    return replicationSeeds[replication];
+  }
+
+  /**
+   *
+   * @param replication the index of the replication
+   * @return the simulated completion time of the replication, or NaN if it did not complete
+   */
+  public double runReplication(int replication) {
+
+    SimulationEngine engine = new SimulationEngine(
+        Main.createCrossroad(initNumVehicles, totalNumVehicles, replicationSeeds[replication]));
+
+    double timeElapsed = engine.run(MAX_TIME_ELAPSED);
+
+    return engine.completed() ? timeElapsed : Double.NaN;
+  }
+
+  /**
+   * runs every replication and keeps the completion times and throughputs of those that completed
+   */
+  public void run() throws InterruptedException {
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    List<Callable<Double>> tasks = new ArrayList<>();
+    for(int i = 0; i < replications; i++) {
+      int replication = i;
+      tasks.add(() -> runReplication(replication));
+    }
+
+    ArrayList<Double> outcomes = new ArrayList<>();
+
+    try {
+      for(Future<Double> future: executor.invokeAll(tasks)) outcomes.add(future.get());
+    } catch(ExecutionException e) {
+      throw new IllegalStateException("REPLICATION FAILED", e.getCause());
+    } finally {
+      executor.shutdown();
+    }
+
+    numIncomplete = 0;
+    for(double outcome: outcomes) if(Double.isNaN(outcome)) numIncomplete++;
+
+    completionTimes = new double[replications - numIncomplete];
+    throughputs = new double[replications - numIncomplete];
+
+    int pointer = 0;
+    for(double outcome: outcomes) if(!Double.isNaN(outcome)) {
+      completionTimes[pointer] = outcome;
+      throughputs[pointer++] = totalNumVehicles / outcome;
+    }
+
+  }
+
+  public int getNumIncomplete() {
+    return numIncomplete;
+  }
+
+  /**
+   *
+   * @return the statistics of the simulated completion times, in seconds
+   */
+  public SampleStatistics getCompletionTimeStatistics() {
+    return new SampleStatistics(completionTimes);
+  }
+
+  /**
+   *
+   * @return the statistics of the throughputs, in cars per simulated second
+   */
+  public SampleStatistics getThroughputStatistics() {
+    return new SampleStatistics(throughputs);
+  }
+
+  /**
+   * Usage: ReplicationRunner [replications] [seed] [threads] [input file name]
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+
+    int replications = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_REPLICATIONS;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    String inputFileName = args.length > 3 ? args[3] : Main.INPUT_FILE_NAME;
+
+    long[] input = Main.readInput(Main.INPUT_ADDRESS + inputFileName);
+
+    ReplicationRunner runner = new ReplicationRunner((int)input[0], (int)input[1], replications, seed, threads);
+
+    long startTime = System.nanoTime();
+
+    runner.run();
+
+    double wallTime = (System.nanoTime() - startTime) / 1e9;
+
+    System.out.println(String.format("%d REPLICATIONS OF %d CARS (%d INCOMPLETE) ON %d THREADS IN %.2f SECONDS",
+        replications, input[1], runner.getNumIncomplete(), threads, wallTime));
+    System.out.println(runner.getCompletionTimeStatistics().toString("COMPLETION TIME (SECONDS)"));
+    System.out.println(runner.getThroughputStatistics().toString("THROUGHPUT (CARS PER SECOND)"));
+
+  }
+
+}
@@ -0,0 +1,237 @@
+package map;
+
+import java.io.IOException;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class RoadNetwork {
+
+  public static final int DEFAULT_ROWS = 4;
+  public static final int DEFAULT_COLUMNS = 4;
+
+  /**
+   * runs that have not completed after this much simulated time are abandoned
+   */
+  public static final double MAX_TIME_ELAPSED = 3600.;
+
+  private final int rows;
+  private final int columns;
+  private final int totalNumVehicles;
+  private final long seed;
+  private final Crossroad[] crossroads; // row by row
+  private double timeElapsed;
+  private long tickCount;
+  private volatile boolean stopped;
+  private volatile Throwable failure;
+
+  /**
+   * The RoadNetwork lays rows x columns Crossroads edge to edge: column + 1 is next in direction 0 and row + 1 is next in
+   * direction 1, so that a vehicle leaving a panel is handed over to the entry of the next one
+   * New vehicles only come from the border of the network, each time a vehicle leaves it
+   *
+   * @param rows the number of rows of Crossroads
+   * @param columns the number of columns of Crossroads
+   * @param initNumVehicles the number of vehicles present in each Crossroad at the start
+   * @param totalNumVehicles the number of vehicles that have to leave the network for the run to be completed
+   * @param seed the seed from which the seeds of the Crossroads are derived
+   */
+  public RoadNetwork(int rows, int columns, int initNumVehicles, int totalNumVehicles, long seed) {
+
+    this.rows = rows;
+    this.columns = columns;
+    this.totalNumVehicles = totalNumVehicles;
+    this.seed = seed;
+
+    RandomStream seedStream = new RandomStream(seed);
+
+    crossroads = new Crossroad[rows * columns];
+    for(int i = 0; i < crossroads.length; i++)
+      crossroads[i] = Main.createEmptyCrossroad(initNumVehicles, totalNumVehicles, seedStream.nextLong());
+
+    for(int row = 0; row < rows; row++) for(int column = 0; column < columns; column++) {
+      Crossroad crossroad = getCrossroad(row, column);
+      crossroad.setNeighbour(0, column + 1 < columns ? getCrossroad(row, column + 1) : null);
+      crossroad.setNeighbour(1, row + 1 < rows ? getCrossroad(row + 1, column) : null);
+      crossroad.setNeighbour(2, column > 0 ? getCrossroad(row, column - 1) : null);
+      crossroad.setNeighbour(3, row > 0 ? getCrossroad(row - 1, column) : null);
+    }
+
+    for(Crossroad crossroad: crossroads) for(int i = 0; i < initNumVehicles; i++) crossroad.spawnVehicle("map.Car");
+
+    timeElapsed = 0.;
+    tickCount = 0;
+
+  }
+
+  public Crossroad getCrossroad(int row, int column) {
+    return crossroads[row * columns + column];
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public int getColumns() {
+    return columns;
+  }
+
+  public int getTotalNumVehicles() {
+    return totalNumVehicles;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public double getTimeElapsed() {
+    return timeElapsed;
+  }
+
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  /**
+   *
+   * @return the number of vehicles that have left the network
+   */
+  public int getNumExited() {
+
+    int numExited = 0;
+
+    for(Crossroad crossroad: crossroads) numExited += crossroad.getNumExited();
+
+    return numExited;
+  }
+
+  public boolean completed() {
+    return getNumExited() >= totalNumVehicles;
+  }
+
+  /**
+   * advances every Crossroad by one interval on the calling thread
+   */
+  public void passTime() {
+
+    for(Crossroad crossroad: crossroads) crossroad.passTime(1.);
+    for(Crossroad crossroad: crossroads) crossroad.receiveVehicles();
+
+    timeElapsed += Main.INTERVAL;
+    tickCount++;
+
+  }
+
+  /**
+   * Steps the network on a number of worker threads, each owning a contiguous block of Crossroads, so that most
+   * neighbours are stepped by the same thread
+   * Every interval takes two phases separated by barriers: each worker steps its own Crossroads, which only fills their
+   * outboxes, and then takes over the vehicles handed over to them, which only reads the outboxes of the neighbours
+   * The outcome is thus the same as with passTime(), whatever the number of threads
+   *
+   * @param threads the number of worker threads
+   * @param maxTimeElapsed the simulated time after which the run is abandoned, in seconds
+   * @return the simulated time elapsed, in seconds
+   */
+  public double run(int threads, double maxTimeElapsed) throws InterruptedException {
+
+    int numWorkers = Math.max(1, Math.min(threads, crossroads.length));
+
+    stopped = completed() || timeElapsed >= maxTimeElapsed;
+    failure = null;
+
+    CyclicBarrier stepBarrier = new CyclicBarrier(numWorkers);
+    CyclicBarrier transferBarrier = new CyclicBarrier(numWorkers, () -> {
+      timeElapsed += Main.INTERVAL;
+      tickCount++;
+      stopped = completed() || timeElapsed >= maxTimeElapsed;
+    });
+
+    Thread[] workers = new Thread[numWorkers];
+
+    for(int i = 0; i < numWorkers; i++) {
+
+      int from = crossroads.length * i / numWorkers;
+      int to = crossroads.length * (i + 1) / numWorkers;
+
+      workers[i] = new Thread(() -> {
+        try {
+          while(!stopped) {
+            for(int index = from; index < to; index++) crossroads[index].passTime(1.);
+            stepBarrier.await();
+            for(int index = from; index < to; index++) crossroads[index].receiveVehicles();
+            transferBarrier.await();
+          }
+        } catch(InterruptedException | BrokenBarrierException e) {
+          // another worker has failed, or the run has been interrupted
+        } catch(RuntimeException e) {
+
+          // the other workers are interrupted rather than only released from the barriers, since those still stepping
+          // would otherwise wait at the next generation of the barriers for a worker that never comes
+
+          failure = e;
+          stopped = true;
+
+          for(Thread worker: workers) if(worker != Thread.currentThread()) worker.interrupt();
+
+          stepBarrier.reset();
+          transferBarrier.reset();
+
+        }
+      }, "RoadNetwork-" + i);
+
+    }
+
+    // every worker is created before any starts, so that a failing worker sees all the others
+
+    for(Thread worker: workers) worker.start();
+
+    try {
+      for(Thread worker: workers) worker.join();
+    } catch(InterruptedException e) {
+      for(Thread worker: workers) worker.interrupt();
+      throw e;
+    }
+
+    if(failure != null) throw new IllegalStateException("ROAD NETWORK FAILED", failure);
+
+    return timeElapsed;
+  }
+
+  /**
+   * Usage: RoadNetwork [rows] [columns] [threads] [input file name]
+   * The input file gives the initial number of cars of each Crossroad, the number of cars per Crossroad that have to
+   * leave the network, and optionally the seed
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+
+    int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+    int columns = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COLUMNS;
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    String inputFileName = args.length > 3 ? args[3] : Main.INPUT_FILE_NAME;
+
+    long[] input = Main.readInput(Main.INPUT_ADDRESS + inputFileName);
+
+    RoadNetwork network = new RoadNetwork(rows, columns, (int)input[0], (int)input[1] * rows * columns, input[2]);
+
+    long startTime = System.nanoTime();
+
+    network.run(threads, MAX_TIME_ELAPSED);
+
+    double wallTime = (System.nanoTime() - startTime) / 1e9;
+
+    System.out.println(String.format("TOTAL TIME ELAPSED FOR %d CARS IN A %dx%d NETWORK: %.2f SECONDS%s",
+        network.getTotalNumVehicles(), rows, columns, network.getTimeElapsed(), network.completed() ? "" : " (INCOMPLETE)"));
+    System.out.println(String.format("SEED: %d", network.getSeed()));
+    System.out.println(String.format("%d TICKS ON %d THREADS IN %.2f SECONDS: %.0f TICKS PER SECOND",
+        network.getTickCount(), threads, wallTime, network.getTickCount() / wallTime));
+
+  }
+
+}
@@ -0,0 +1,109 @@
+package map;
+
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class SampleStatistics {
+
+  /**
+   * the two-sided 95% quantile of the standard normal distribution
+   */
+  public static final double Z_95 = 1.959964;
+
+  private final double[] sortedValues;
+  private final double mean;
+  private final double variance;
+
+  /**
+   * The SampleStatistics class summarizes the outcomes of independent replications
+   *
+   * @param values the outcome of each replication; the array is not modified
+   */
+  public SampleStatistics(double[] values) {
+
+    sortedValues = values.clone();
+    Arrays.sort(sortedValues);
+
+    double sum = 0;
+    for(double value: sortedValues) sum += value;
+
+    mean = sortedValues.length > 0 ? sum / sortedValues.length : Double.NaN;
+
+    double squaredDeviations = 0;
+    for(double value: sortedValues) squaredDeviations += Math.pow(value - mean, 2);
+
+    variance = sortedValues.length > 1 ? squaredDeviations / (sortedValues.length - 1) : Double.NaN;
+
+  }
+
+  public int getCount() {
+    return sortedValues.length;
+  }
+
+  public double getMean() {
+    return mean;
+  }
+
+  /**
+   *
+   * @return the unbiased sample variance
+   */
+  public double getVariance() {
+    return variance;
+  }
+
+  public double getStandardDeviation() {
+    return Math.sqrt(variance);
+  }
+
+  public double getMin() {
+    return sortedValues.length > 0 ? sortedValues[0] : Double.NaN;
+  }
+
+  public double getMax() {
+    return sortedValues.length > 0 ? sortedValues[sortedValues.length - 1] : Double.NaN;
+  }
+
+  /**
+   *
+   * @param percentage between 0 and 100
+   * @return the percentile, interpolated linearly between the two closest ranks
+   */
+  public double getPercentile(double percentage) {
+
+    if(sortedValues.length == 0) return Double.NaN;
+
+    double rank = percentage / 100 * (sortedValues.length - 1);
+    int lowerRank = (int)Math.floor(rank);
+    int upperRank = Math.min(lowerRank + 1, sortedValues.length - 1);
+
+    return sortedValues[lowerRank] + (rank - lowerRank) * (sortedValues[upperRank] - sortedValues[lowerRank]);
+  }
+
+  /**
+   * uses the normal approximation, which is accurate for the hundreds of replications this is meant for
+   *
+   * @return half of the width of the 95% confidence interval of the mean
+   */
+  public double getConfidenceHalfWidth() {
+    return Z_95 * Math.sqrt(variance / sortedValues.length);
+  }
+
+  /**
+   *
+   * @param name the name of the measured quantity
+   * @return a one-line summary of the sample
+   */
+  public String toString(String name) {
+    return String.format("%s: MEAN %.4g, VARIANCE %.4g, 95%% CI [%.4g, %.4g], P5 %.4g, P50 %.4g, P95 %.4g, MIN %.4g, MAX %.4g",
+        name, mean, variance, mean - getConfidenceHalfWidth(), mean + getConfidenceHalfWidth(),
+        getPercentile(5), getPercentile(50), getPercentile(95), getMin(), getMax());
+  }
+
+}
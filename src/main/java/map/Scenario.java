@@ -0,0 +1,365 @@
+package map;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 3,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class Scenario {
+
+  private String name;
+  private long seed;
+  private int initNumVehicles;
+  private int totalNumVehicles;
+  private double maxTimeElapsed;
+  private double laneWidth;
+  private double centerX;
+  private double centerY;
+  private double minSpeed;
+  private double maxSpeed;
+  private double[] arrivalWeights;
+  private double[][] turnRatios;
+  private String[] mixNames;
+  private double[] mixShares;
+  private double[] mixAlongs;
+  private double[] mixAcrosses;
+  private double[][] hourlyVolumes;
+  private double[] hourlyRates;
+  private int startHour;
+  private double demandScale;
+  private String logFileName;
+  private String vehiclesFileName;
+  private String reportFileName;
+
+  /**
+   * A Scenario holds everything needed to build and run one Crossroad: its geometry, its demand and its outputs
+   * Unless set otherwise, it is the Crossroad of the input file with a random seed, run until it is completed
+   *
+   * @param name the name of the scenario, as reported
+   */
+  public Scenario(String name) {
+
+    this.name = name;
+
+    seed = RandomStream.randomSeed();
+    initNumVehicles = 6;
+    totalNumVehicles = 300;
+    maxTimeElapsed = Double.POSITIVE_INFINITY;
+    laneWidth = 100 / Main.PIXELS_PER_METER;
+    centerX = 300 / Main.PIXELS_PER_METER;
+    centerY = 300 / Main.PIXELS_PER_METER;
+    minSpeed = Crossroad.DEFAULT_MIN_SPEED;
+    maxSpeed = Crossroad.DEFAULT_MAX_SPEED;
+    startHour = 0;
+    demandScale = 1;
+
+  }
+
+  /**
+   *
+   * @param name the name of the copy
+   * @return a Scenario with the same settings as this one, which can be changed independently
+   */
+  public Scenario copy(String name) {
+
+    Scenario copy = new Scenario(name);
+
+    copy.seed = seed;
+    copy.initNumVehicles = initNumVehicles;
+    copy.totalNumVehicles = totalNumVehicles;
+    copy.maxTimeElapsed = maxTimeElapsed;
+    copy.laneWidth = laneWidth;
+    copy.centerX = centerX;
+    copy.centerY = centerY;
+    copy.minSpeed = minSpeed;
+    copy.maxSpeed = maxSpeed;
+    copy.setArrivalWeights(arrivalWeights);
+    copy.setTurnRatios(turnRatios);
+    copy.setVehicleMix(mixNames, mixShares, mixAlongs, mixAcrosses);
+    copy.hourlyVolumes = hourlyVolumes;
+    copy.hourlyRates = hourlyRates;
+    copy.startHour = startHour;
+    copy.demandScale = demandScale;
+    copy.logFileName = logFileName;
+    copy.vehiclesFileName = vehiclesFileName;
+    copy.reportFileName = reportFileName;
+
+    return copy;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public int getInitNumVehicles() {
+    return initNumVehicles;
+  }
+
+  public int getTotalNumVehicles() {
+    return totalNumVehicles;
+  }
+
+  /**
+   *
+   * @param initNumVehicles the number of vehicles present at the start
+   * @param totalNumVehicles the number of vehicles to be spawned in total
+   */
+  public void setNumVehicles(int initNumVehicles, int totalNumVehicles) {
+    this.initNumVehicles = initNumVehicles;
+    this.totalNumVehicles = totalNumVehicles;
+  }
+
+  public double getMaxTimeElapsed() {
+    return maxTimeElapsed;
+  }
+
+  /**
+   *
+   * @param maxTimeElapsed the simulated time after which the run is abandoned, in seconds
+   */
+  public void setMaxTimeElapsed(double maxTimeElapsed) {
+    this.maxTimeElapsed = maxTimeElapsed;
+  }
+
+  public double getLaneWidth() {
+    return laneWidth;
+  }
+
+  public void setLaneWidth(double laneWidth) {
+    this.laneWidth = laneWidth;
+  }
+
+  public Position getCenter() {
+    return new Position(centerX, centerY);
+  }
+
+  public void setCenter(double centerX, double centerY) {
+    this.centerX = centerX;
+    this.centerY = centerY;
+  }
+
+  public double getMinSpeed() {
+    return minSpeed;
+  }
+
+  public double getMaxSpeed() {
+    return maxSpeed;
+  }
+
+  public void setSpeedRange(double minSpeed, double maxSpeed) {
+    this.minSpeed = minSpeed;
+    this.maxSpeed = maxSpeed;
+  }
+
+  public void setArrivalWeights(double[] arrivalWeights) {
+    this.arrivalWeights = arrivalWeights == null ? null : arrivalWeights.clone();
+  }
+
+  public void setTurnRatios(double[][] turnRatios) {
+
+    if(turnRatios == null) {
+      this.turnRatios = null;
+      return;
+    }
+
+    this.turnRatios = new double[4][];
+    for(int origin = 0; origin < 4; origin++) this.turnRatios[origin] = turnRatios[origin].clone();
+
+  }
+
+  /**
+   *
+   * @param origin an origin
+   * @param ratios the shares of the vehicles from the origin turning LEFT, going STRAIGHT and turning RIGHT
+   */
+  public void setTurnRatios(int origin, double[] ratios) {
+
+    if(turnRatios == null) {
+      turnRatios = new double[4][];
+      for(int other = 0; other < 4; other++) turnRatios[other] = new double[] {1, 1, 1};
+    }
+
+    turnRatios[origin] = ratios.clone();
+
+  }
+
+  /**
+   *
+   * @param names the name of each type of vehicle, or null for cars of the default size only
+   * @param shares the share of each type of vehicle
+   * @param alongs the length of each type of vehicle
+   * @param acrosses the width of each type of vehicle
+   */
+  public void setVehicleMix(String[] names, double[] shares, double[] alongs, double[] acrosses) {
+    mixNames = names == null ? null : names.clone();
+    mixShares = names == null ? null : shares.clone();
+    mixAlongs = names == null ? null : alongs.clone();
+    mixAcrosses = names == null ? null : acrosses.clone();
+  }
+
+  /**
+   * adds a type of vehicle to the mix, which only holds the types added so far
+   *
+   * @param name the name of the type
+   * @param share the share of the type, relative to the others
+   * @param along the length of the type
+   * @param across the width of the type
+   */
+  public void addVehicleType(String name, double share, double along, double across) {
+
+    int numTypes = mixNames == null ? 0 : mixNames.length;
+
+    String[] names = new String[numTypes + 1];
+    double[] shares = new double[numTypes + 1];
+    double[] alongs = new double[numTypes + 1];
+    double[] acrosses = new double[numTypes + 1];
+
+    if(numTypes > 0) {
+      System.arraycopy(mixNames, 0, names, 0, numTypes);
+      System.arraycopy(mixShares, 0, shares, 0, numTypes);
+      System.arraycopy(mixAlongs, 0, alongs, 0, numTypes);
+      System.arraycopy(mixAcrosses, 0, acrosses, 0, numTypes);
+    }
+
+    names[numTypes] = name;
+    shares[numTypes] = share;
+    alongs[numTypes] = along;
+    acrosses[numTypes] = across;
+
+    mixNames = names;
+    mixShares = shares;
+    mixAlongs = alongs;
+    mixAcrosses = acrosses;
+
+  }
+
+  /**
+   *
+   * @param hourlyVolumes the number of vehicles coming from each origin during each hour of a day, as read by
+   * TrafficCountsReader.readHourlyVolumes(), or null for each vehicle leaving to be replaced by a new one; replaces
+   * any constant arrival rates
+   */
+  public void setHourlyVolumes(double[][] hourlyVolumes) {
+    this.hourlyVolumes = hourlyVolumes;
+    hourlyRates = null;
+  }
+
+  /**
+   *
+   * @param hourlyRates the number of vehicles coming from each origin per hour, at any time, or null for each vehicle
+   * leaving to be replaced by a new one; replaces any hourly volumes
+   */
+  public void setHourlyRates(double[] hourlyRates) {
+    this.hourlyRates = hourlyRates == null ? null : hourlyRates.clone();
+    hourlyVolumes = null;
+  }
+
+  public int getStartHour() {
+    return startHour;
+  }
+
+  /**
+   *
+   * @param startHour the hour of the day of the hourly volumes the simulation starts at
+   */
+  public void setStartHour(int startHour) {
+    this.startHour = startHour;
+  }
+
+  public double getDemandScale() {
+    return demandScale;
+  }
+
+  /**
+   *
+   * @param demandScale the factor of every hourly volume or arrival rate
+   */
+  public void setDemandScale(double demandScale) {
+    this.demandScale = demandScale;
+  }
+
+  /**
+   *
+   * @return the arrival schedule from the hourly volumes or the arrival rates, or null if there are neither
+   */
+  public ArrivalSchedule createArrivalSchedule() {
+
+    if(hourlyVolumes != null) return ArrivalSchedule.fromHourlyVolumes(hourlyVolumes, startHour, demandScale);
+
+    if(hourlyRates == null) return null;
+
+    double[] rates = new double[4];
+    for(int origin = 0; origin < 4; origin++) rates[origin] = hourlyRates[origin] * demandScale;
+
+    return ArrivalSchedule.constant(rates);
+  }
+
+  public String getLogFileName() {
+    return logFileName;
+  }
+
+  /**
+   *
+   * @param logFileName the name of the trajectory log in the output folder, or null for none
+   */
+  public void setLogFileName(String logFileName) {
+    this.logFileName = logFileName;
+  }
+
+  public String getVehiclesFileName() {
+    return vehiclesFileName;
+  }
+
+  /**
+   *
+   * @param vehiclesFileName the name of the table of the vehicles in the output folder, or null for none
+   */
+  public void setVehiclesFileName(String vehiclesFileName) {
+    this.vehiclesFileName = vehiclesFileName;
+  }
+
+  public String getReportFileName() {
+    return reportFileName;
+  }
+
+  /**
+   *
+   * @param reportFileName the name of the metrics report in the output folder, or null for none
+   */
+  public void setReportFileName(String reportFileName) {
+    this.reportFileName = reportFileName;
+  }
+
+  /**
+   * Builds the Crossroad of the scenario, with the initial vehicles already spawned
+   *
+   * @return the Crossroad ready to be simulated
+   */
+  public Crossroad createCrossroad() {
+
+    Crossroad crossroad = new Crossroad(getCenter(), laneWidth, initNumVehicles, totalNumVehicles, seed);
+
+    crossroad.setSpeedRange(minSpeed, maxSpeed);
+    crossroad.setArrivalWeights(arrivalWeights);
+    crossroad.setTurnRatios(turnRatios);
+    crossroad.setVehicleMix(mixShares, mixAlongs, mixAcrosses);
+
+    ArrivalSchedule schedule = createArrivalSchedule();
+    if(schedule != null) crossroad.setArrivalSchedule(schedule);
+
+    for(int i = 0; i < initNumVehicles; i++) crossroad.spawnVehicle("map.Car");
+
+    return crossroad;
+  }
+
+}
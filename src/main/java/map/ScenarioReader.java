@@ -0,0 +1,333 @@
+package map;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 4,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class ScenarioReader implements Closeable {
+
+  /**
+   * the most tokens on one line: more than enough for every key, counts with a few segments included
+   */
+  private static final int MAX_TOKENS = 16;
+
+  private final BufferedReader reader;
+  private final String[] tokens;
+  private int numTokens;
+  private int lineNumber;
+  private Scenario defaults;
+
+  /**
+   * The ScenarioReader parses a scenario file one line at a time, handing out each scenario as soon as it is read,
+   * so that a file of any length is run in constant memory
+   * A line holds a key followed by its values, separated by spaces or tabs; anything after a # is a comment
+   * The settings of a "defaults" block, up to its "end", are inherited by the scenarios after it; each
+   * "scenario NAME" block, up to its "end", then overrides any of them. Scenarios without a seed of their own share
+   * that of the defaults, a random one unless set, so that they are compared on common random numbers:
+   *   seed SEED
+   *   vehicles INITIAL TOTAL
+   *   duration SECONDS
+   *   lane-width METERS
+   *   center X Y
+   *   speed MIN MAX
+   *   arrivals EAST SOUTH WEST NORTH (the relative arrival rate of each origin, numbered 0 to 3 in this order, when a
+   *   vehicle leaving is replaced by a new one)
+   *   rates EAST SOUTH WEST NORTH (vehicles come from each origin at a constant rate, in vehicles per hour)
+   *   turns ORIGIN LEFT STRAIGHT RIGHT (the relative share of each turn from the origin)
+   *   mix NAME SHARE LENGTH WIDTH (one line per type of vehicle)
+   *   counts FILE DATE SEGMENT... (vehicles come at the hourly volumes of the segments in the NYC traffic counts, on
+   *   the date, M/d/yyyy, or averaged over every date if it is "all"; the file is either a table, streamed once when
+   *   the line is read, or its cache, see TrafficCountsCache)
+   *   start-hour HOUR, demand SCALE (the hour of the counts the simulation starts at, and the factor of the counts
+   *   or of the rates)
+   *   log FILE, vehicles-table FILE, report FILE (in the output folder)
+   *
+   * @param reader the source of the scenario file
+   */
+  public ScenarioReader(Reader reader) {
+
+    this.reader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+
+    tokens = new String[MAX_TOKENS];
+    lineNumber = 0;
+    defaults = new Scenario("defaults");
+
+  }
+
+  public ScenarioReader(String address) throws IOException {
+    this(new FileReader(address));
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * splits the next line which is neither blank nor a comment into tokens
+   *
+   * @return false at the end of the file
+   */
+  private boolean readLine() throws IOException {
+
+    String line;
+
+    while((line = reader.readLine()) != null) {
+
+      lineNumber++;
+      numTokens = 0;
+
+      int length = line.indexOf('#');
+      if(length < 0) length = line.length();
+
+      int start = -1;
+
+      for(int i = 0; i <= length; i++) {
+
+        boolean blank = i == length || line.charAt(i) == ' ' || line.charAt(i) == '\t';
+
+        if(!blank && start < 0) start = i;
+
+        else if(blank && start >= 0) {
+          if(numTokens == MAX_TOKENS) throw error("TOO MANY VALUES");
+          tokens[numTokens++] = line.substring(start, i);
+          start = -1;
+        }
+
+      }
+
+      if(numTokens > 0) return true;
+
+    }
+
+    return false;
+  }
+
+  private IOException error(String message) {
+    return new IOException(String.format("SCENARIO FILE LINE %d: %s", lineNumber, message));
+  }
+
+  private void expectValues(int numValues) throws IOException {
+    if(numTokens != numValues + 1) throw error(String.format("%s TAKES %d VALUES, NOT %d",
+        tokens[0].toUpperCase(), numValues, numTokens - 1));
+  }
+
+  private double parseDouble(int token) throws IOException {
+
+    try {
+      return Double.parseDouble(tokens[token]);
+    } catch(NumberFormatException e) {
+      throw error(String.format("NOT A NUMBER: %s", tokens[token]));
+    }
+
+  }
+
+  private double parseNonNegative(int token) throws IOException {
+
+    double value = parseDouble(token);
+
+    if(!(value >= 0)) throw error(String.format("NEGATIVE VALUE: %s", tokens[token]));
+
+    return value;
+  }
+
+  private long parseLong(int token) throws IOException {
+
+    try {
+      return Long.parseLong(tokens[token]);
+    } catch(NumberFormatException e) {
+      throw error(String.format("NOT AN INTEGER: %s", tokens[token]));
+    }
+
+  }
+
+  /**
+   * applies the setting on the current line to a scenario
+   */
+  private void parseSetting(Scenario scenario) throws IOException {
+
+    switch(tokens[0]) {
+
+      case "seed":
+        expectValues(1);
+        scenario.setSeed(parseLong(1));
+        break;
+
+      case "vehicles":
+        expectValues(2);
+        long initNumVehicles = parseLong(1);
+        long totalNumVehicles = parseLong(2);
+        if(initNumVehicles < 0 || initNumVehicles > totalNumVehicles || totalNumVehicles > Integer.MAX_VALUE)
+          throw error("INVALID NUMBERS OF VEHICLES");
+        scenario.setNumVehicles((int)initNumVehicles, (int)totalNumVehicles);
+        break;
+
+      case "duration":
+        expectValues(1);
+        scenario.setMaxTimeElapsed(parseNonNegative(1));
+        break;
+
+      case "lane-width":
+        expectValues(1);
+        scenario.setLaneWidth(parseNonNegative(1));
+        break;
+
+      case "center":
+        expectValues(2);
+        scenario.setCenter(parseDouble(1), parseDouble(2));
+        break;
+
+      case "speed":
+        expectValues(2);
+        double minSpeed = parseNonNegative(1);
+        double maxSpeed = parseNonNegative(2);
+        if(maxSpeed < minSpeed) throw error("HIGHEST SPEED BELOW LOWEST SPEED");
+        scenario.setSpeedRange(minSpeed, maxSpeed);
+        break;
+
+      case "arrivals":
+        expectValues(4);
+        double[] weights = new double[4];
+        for(int origin = 0; origin < 4; origin++) weights[origin] = parseNonNegative(origin + 1);
+        scenario.setArrivalWeights(weights);
+        break;
+
+      case "rates":
+        expectValues(4);
+        double[] rates = new double[4];
+        for(int origin = 0; origin < 4; origin++) rates[origin] = parseNonNegative(origin + 1);
+        scenario.setHourlyRates(rates);
+        break;
+
+      case "turns":
+        expectValues(4);
+        long origin = parseLong(1);
+        if(origin < 0 || origin > 3) throw error(String.format("NO SUCH ORIGIN: %d", origin));
+        double[] ratios = new double[3];
+        for(int turn = 0; turn < 3; turn++) ratios[turn] = parseNonNegative(turn + 2);
+        if(ratios[0] + ratios[1] + ratios[2] == 0) throw error("NO TURN ALLOWED");
+        scenario.setTurnRatios((int)origin, ratios);
+        break;
+
+      case "mix":
+        expectValues(4);
+        scenario.addVehicleType(tokens[1], parseNonNegative(2), parseNonNegative(3), parseNonNegative(4));
+        break;
+
+      case "counts":
+        if(numTokens < 4) throw error("COUNTS TAKES A FILE, A DATE AND SEGMENTS");
+        long[] segmentIds = new long[numTokens - 3];
+        for(int segment = 0; segment < segmentIds.length; segment++) segmentIds[segment] = parseLong(segment + 3);
+        int epochDay = tokens[2].equals("all") ? Integer.MIN_VALUE
+            : TrafficCountsReader.parseEpochDay(tokens[2], lineNumber);
+        scenario.setHourlyVolumes(tokens[1].endsWith(TrafficCountsCache.EXTENSION)
+            ? new TrafficCountsCache(tokens[1]).getHourlyVolumes(segmentIds, epochDay)
+            : TrafficCountsReader.readHourlyVolumes(tokens[1], segmentIds, epochDay));
+        break;
+
+      case "start-hour":
+        expectValues(1);
+        long startHour = parseLong(1);
+        if(startHour < 0 || startHour >= TrafficCountsReader.NUM_HOURS)
+          throw error(String.format("NO SUCH HOUR: %d", startHour));
+        scenario.setStartHour((int)startHour);
+        break;
+
+      case "demand":
+        expectValues(1);
+        scenario.setDemandScale(parseNonNegative(1));
+        break;
+
+      case "log":
+        expectValues(1);
+        scenario.setLogFileName(tokens[1]);
+        break;
+
+      case "vehicles-table":
+        expectValues(1);
+        scenario.setVehiclesFileName(tokens[1]);
+        break;
+
+      case "report":
+        expectValues(1);
+        scenario.setReportFileName(tokens[1]);
+        break;
+
+      default:
+        throw error(String.format("UNKNOWN KEY: %s", tokens[0]));
+
+    }
+
+  }
+
+  /**
+   * reads the settings of a block up to its end; the mix lines of a block replace any inherited mix
+   */
+  private void parseBlock(Scenario scenario) throws IOException {
+
+    boolean mixed = false;
+
+    while(readLine()) {
+
+      if(tokens[0].equals("end")) {
+        expectValues(0);
+        return;
+      }
+
+      if(tokens[0].equals("mix") && !mixed) {
+        scenario.setVehicleMix(null, null, null, null);
+        mixed = true;
+      }
+
+      parseSetting(scenario);
+
+    }
+
+    throw error("MISSING END");
+  }
+
+  /**
+   *
+   * @return the next scenario of the file, with the defaults read so far, or null at the end of the file
+   */
+  public Scenario next() throws IOException {
+
+    while(readLine()) {
+
+      switch(tokens[0]) {
+
+        case "defaults":
+          expectValues(0);
+          parseBlock(defaults);
+          break;
+
+        case "scenario":
+          expectValues(1);
+          Scenario scenario = defaults.copy(tokens[1]);
+          parseBlock(scenario);
+          return scenario;
+
+        default:
+          throw error(String.format("EXPECTED A BLOCK, NOT %s", tokens[0]));
+
+      }
+
+    }
+
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+}
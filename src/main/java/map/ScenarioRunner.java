@@ -0,0 +1,112 @@
+package map;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class ScenarioRunner {
+
+  public static final String SCENARIO_FILE_NAME = "scenarios.in";
+
+  /**
+   * how many scenarios may be read ahead of the oldest one still running, per thread
+   */
+  public static final int READ_AHEAD = 2;
+
+  private ScenarioRunner() {
+  }
+
+  /**
+   * Builds the Crossroad of a scenario, runs it headless and writes the outputs the scenario asks for
+   *
+   * @param scenario the scenario to be run
+   * @return the one-line summary of the run
+   */
+  public static String runScenario(Scenario scenario) throws IOException {
+
+    SimulationEngine engine = new SimulationEngine(scenario.createCrossroad());
+
+    CrossroadMetrics metrics = new CrossroadMetrics(scenario.getTotalNumVehicles());
+    engine.getCrossroad().setMetrics(metrics);
+
+    if(scenario.getLogFileName() != null)
+      engine.setTrajectoryLog(new TrajectoryLog(Main.OUTPUT_ADDRESS + scenario.getLogFileName()));
+
+    double timeElapsed = engine.run(scenario.getMaxTimeElapsed());
+
+    if(engine.getTrajectoryLog() != null) engine.getTrajectoryLog().close();
+
+    if(scenario.getReportFileName() != null) {
+      try(PrintStream output = new PrintStream(Main.OUTPUT_ADDRESS + scenario.getReportFileName())) {
+        metrics.writeReport(output);
+      }
+    }
+
+    if(scenario.getVehiclesFileName() != null) {
+      try(PrintStream output = new PrintStream(Main.OUTPUT_ADDRESS + scenario.getVehiclesFileName())) {
+        metrics.writeVehicles(output);
+      }
+    }
+
+    int numExited = engine.getCrossroad().getNumExited();
+
+    return String.format("%s: SEED %d, %s AFTER %.2f SECONDS, %d OF %d VEHICLES EXITED, %d TICKS",
+        scenario.getName(), scenario.getSeed(), engine.completed() ? "COMPLETED" : "STOPPED", timeElapsed,
+        numExited, scenario.getTotalNumVehicles(), engine.getTickCount());
+  }
+
+  /**
+   * Usage: ScenarioRunner [scenario file name] [threads]
+   * Runs every scenario of the file in the input folder on a fixed pool of threads, reading the file while the
+   * scenarios run, and prints the summary of each in the order of the file
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+
+    String scenarioFileName = args.length > 0 ? args[0] : SCENARIO_FILE_NAME;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+
+    long startTime = System.nanoTime();
+    int numScenarios = 0;
+
+    try(ScenarioReader reader = new ScenarioReader(Main.INPUT_ADDRESS + scenarioFileName)) {
+
+      Scenario scenario;
+
+      while((scenario = reader.next()) != null) {
+
+        Scenario next = scenario;
+        pending.add(executor.submit(() -> runScenario(next)));
+        numScenarios++;
+
+        while(pending.size() > threads * READ_AHEAD) System.out.println(pending.poll().get());
+
+      }
+
+      while(!pending.isEmpty()) System.out.println(pending.poll().get());
+
+    } catch(ExecutionException e) {
+      throw new IllegalStateException("SCENARIO FAILED", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    System.out.println(String.format("%d SCENARIOS ON %d THREADS IN %.2f SECONDS",
+        numScenarios, threads, (System.nanoTime() - startTime) / 1e9));
+
+  }
+
+}
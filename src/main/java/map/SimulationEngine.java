@@ -0,0 +1,252 @@
+package map;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 5,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class SimulationEngine {
+
+  private final Crossroad crossroad;
+  private final ArrayList<Obstacle> obstacles;
+  private double timeElapsed;
+  private long tickCount;
+  private TrajectoryLog trajectoryLog;
+  private TickProfiler profiler;
+
+  /**
+   * The SimulationEngine steps a Crossroad without any display, as fast as the CPU allows
+   * It is the headless counterpart of DisplayPanel, which paces the same steps to the wall clock
+   *
+   * @param crossroad the Crossroad to be simulated, with its initial vehicles already spawned
+   */
+  public SimulationEngine(Crossroad crossroad) {
+
+    this.crossroad = crossroad;
+
+    obstacles = new ArrayList<>();
+
+    timeElapsed = 0.;
+    tickCount = 0;
+
+  }
+
+  public Crossroad getCrossroad() {
+    return crossroad;
+  }
+
+  public void addObstacle(Obstacle obstacle) {
+    obstacles.add(obstacle);
+  }
+
+  public void addObstacles(Obstacle[] obstacles) {
+    this.obstacles.addAll(Arrays.asList(obstacles));
+  }
+
+  public void addObstacles(ArrayList<Obstacle> obstacles) {
+    this.obstacles.addAll(obstacles);
+  }
+
+  public double getTimeElapsed() {
+    return timeElapsed;
+  }
+
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  /**
+   *
+   * @param trajectoryLog the log every tick is appended to from now on, or null not to log anything
+   */
+  public void setTrajectoryLog(TrajectoryLog trajectoryLog) {
+    this.trajectoryLog = trajectoryLog;
+  }
+
+  public TrajectoryLog getTrajectoryLog() {
+    return trajectoryLog;
+  }
+
+  /**
+   *
+   * @param profiler the TickProfiler timing the ticks from now on, or null
+   */
+  public void setProfiler(TickProfiler profiler) {
+    this.profiler = profiler;
+    crossroad.setProfiler(profiler);
+  }
+
+  public TickProfiler getProfiler() {
+    return profiler;
+  }
+
+  public boolean completed() {
+    return crossroad.completed();
+  }
+
+  /**
+   * Branches the simulation: the copy goes on from the current interval exactly as this one would, so that a run warmed
+   * up once can be continued into many variants, each changed as needed before stepping it
+   * The copy does not log anything, nor is it profiled
+   *
+   * @return an independent copy of the Crossroad, the obstacles and the clock
+   */
+  public SimulationEngine fork() {
+
+    SimulationEngine fork = new SimulationEngine(crossroad.fork());
+
+    for(Obstacle obstacle: obstacles) fork.obstacles.add(Crossroad.copyObstacle(obstacle));
+
+    fork.timeElapsed = timeElapsed;
+    fork.tickCount = tickCount;
+
+    return fork;
+  }
+
+  /**
+   * writes the clock, the state of the Crossroad, see Crossroad.writeState(), and the obstacles
+   *
+   * @param output where the state is written
+   */
+  public void writeState(DataOutput output) throws IOException {
+
+    output.writeDouble(timeElapsed);
+    output.writeLong(tickCount);
+
+    crossroad.writeState(output);
+    Crossroad.writeObstacles(output, obstacles);
+
+  }
+
+  /**
+   *
+   * @param input where a state written by writeState() is read from
+   * @return a SimulationEngine that goes on exactly as the one whose state was written would, without logging
+   */
+  public static SimulationEngine readState(DataInput input) throws IOException {
+
+    double timeElapsed = input.readDouble();
+    long tickCount = input.readLong();
+
+    SimulationEngine engine = new SimulationEngine(Crossroad.readState(input));
+
+    engine.obstacles.addAll(Crossroad.readObstacles(input));
+    engine.timeElapsed = timeElapsed;
+    engine.tickCount = tickCount;
+
+    return engine;
+  }
+
+  /**
+   * advances the Crossroad and the obstacles by one interval, and logs the result if there is a TrajectoryLog
+   */
+  public void passTime() {
+
+    if(profiler != null) profiler.beginTick(crossroad);
+
+    crossroad.passTime(1.);
+    obstacles.forEach(obstacle -> obstacle.passTime(1.));
+
+    if(profiler != null) {
+      profiler.mark(TickProfiler.OBSTACLES);
+      profiler.endTick(crossroad);
+    }
+
+    timeElapsed += Main.INTERVAL;
+    tickCount++;
+
+    if(trajectoryLog == null) return;
+
+    try {
+      trajectoryLog.append(crossroad, obstacles, timeElapsed, tickCount);
+    } catch(IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+  }
+
+  /**
+   * steps the simulation until the Crossroad is completed
+   *
+   * @return the simulated time elapsed, in seconds
+   */
+  public double run() {
+
+    while(!completed()) passTime();
+
+    return timeElapsed;
+  }
+
+  /**
+   * steps the simulation until the Crossroad is completed, or until too much time has been simulated
+   *
+   * @param maxTimeElapsed the simulated time after which the run is abandoned, in seconds
+   * @return the simulated time elapsed, in seconds
+   */
+  public double run(double maxTimeElapsed) {
+
+    while(!completed() && timeElapsed < maxTimeElapsed) passTime();
+
+    return timeElapsed;
+  }
+
+  /**
+   * Usage: SimulationEngine [input file name] [trajectory log file name] [vehicle metrics file name]
+   * The trajectory log, if any, is written into the output folder and can be replayed with Main; so is the table of
+   * the vehicles, if any, as comma separated values. The metrics of every approach are reported at the end
+   */
+  public static void main(String[] args) throws IOException {
+
+    String inputFileName = args.length > 0 ? args[0] : Main.INPUT_FILE_NAME;
+
+    SimulationEngine engine = new SimulationEngine(Main.loadCrossroad(Main.INPUT_ADDRESS + inputFileName));
+
+    if(args.length > 1 && !args[1].isEmpty()) engine.setTrajectoryLog(new TrajectoryLog(Main.OUTPUT_ADDRESS + args[1]));
+
+    CrossroadMetrics metrics = new CrossroadMetrics(engine.getCrossroad().getTotalNumVehicles());
+    engine.getCrossroad().setMetrics(metrics);
+
+    TickProfiler profiler = new TickProfiler();
+    profiler.register("SimulationEngine");
+    engine.setProfiler(profiler);
+
+    long startTime = System.nanoTime();
+
+    engine.run();
+
+    double wallTime = (System.nanoTime() - startTime) / 1e9;
+
+    if(engine.getTrajectoryLog() != null) {
+      engine.getTrajectoryLog().close();
+      System.out.println(String.format("%d TICKS LOGGED IN %d BYTES",
+          engine.getTrajectoryLog().getNumTicks(), engine.getTrajectoryLog().getSize()));
+    }
+
+    System.out.println(String.format("TOTAL TIME ELAPSED FOR %d CARS: %.2f SECONDS",
+        engine.getCrossroad().getTotalNumVehicles(), engine.getTimeElapsed()));
+    System.out.println(String.format("SEED: %d", engine.getCrossroad().getSeed()));
+    System.out.println(String.format("%d TICKS IN %.2f SECONDS: %.0f TICKS PER SECOND",
+        engine.getTickCount(), wallTime, engine.getTickCount() / wallTime));
+
+    metrics.writeReport(System.out);
+    profiler.writeReport(System.out);
+
+    if(args.length > 2) {
+      try(PrintStream output = new PrintStream(Main.OUTPUT_ADDRESS + args[2])) {
+        metrics.writeVehicles(output);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,193 @@
+package map;
+
+import java.util.ArrayList;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1.1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class Snapshot {
+
+  public static final int INITIAL_CAPACITY = 64;
+
+  private int numVehicles;
+  private int numObstacles;
+  private double timeElapsed;
+  private long tickCount;
+
+  // the vehicles come first, then the obstacles
+
+  private double[] xPositions;
+  private double[] yPositions;
+  private double[] orientations;
+  private double[] alongs;
+  private double[] acrosses;
+  private int[] colors;
+
+  /**
+   * The Snapshot holds what is needed to draw the Crossroad and its obstacles at the end of one interval
+   * It is filled by the simulation thread and is never modified once published through a SnapshotBuffer, so that the
+   * renderer can read it without any lock while the simulation goes on
+   */
+  public Snapshot() {
+
+    numVehicles = 0;
+    numObstacles = 0;
+    timeElapsed = 0.;
+    tickCount = 0;
+
+    xPositions = new double[INITIAL_CAPACITY];
+    yPositions = new double[INITIAL_CAPACITY];
+    orientations = new double[INITIAL_CAPACITY];
+    alongs = new double[INITIAL_CAPACITY];
+    acrosses = new double[INITIAL_CAPACITY];
+    colors = new int[INITIAL_CAPACITY];
+
+  }
+
+  private void ensureCapacity(int capacity) {
+
+    if(capacity <= xPositions.length) return;
+
+    int newCapacity = Math.max(capacity, xPositions.length * 2);
+
+    xPositions = new double[newCapacity];
+    yPositions = new double[newCapacity];
+    orientations = new double[newCapacity];
+    alongs = new double[newCapacity];
+    acrosses = new double[newCapacity];
+    colors = new int[newCapacity];
+
+  }
+
+  /**
+   * Overwrites this Snapshot with the current state; must only be called on a Snapshot that is not published
+   *
+   * @param crossroad the Crossroad
+   * @param obstacles the obstacles drawn on top of the Crossroad
+   * @param timeElapsed the simulated time, in seconds
+   * @param tickCount the number of intervals simulated
+   */
+  public void capture(Crossroad crossroad, ArrayList<Obstacle> obstacles, double timeElapsed, long tickCount) {
+
+    VehicleStore vehicles = crossroad.getVehicleStore();
+
+    numVehicles = vehicles.size();
+    numObstacles = obstacles.size();
+
+    ensureCapacity(numVehicles + numObstacles);
+
+    for(int index = 0; index < numVehicles; index++) {
+      xPositions[index] = vehicles.getXPosition(index);
+      yPositions[index] = vehicles.getYPosition(index);
+      orientations[index] = vehicles.getOrientation(index);
+      alongs[index] = vehicles.getAlong(index);
+      acrosses[index] = vehicles.getAcross(index);
+      colors[index] = vehicles.getVehicle(index).getColorRGB(vehicles.getSpeed(index));
+    }
+
+    for(int i = 0; i < numObstacles; i++) {
+      Obstacle obstacle = obstacles.get(i);
+      int index = numVehicles + i;
+      xPositions[index] = obstacle.getPosition().getXPosition();
+      yPositions[index] = obstacle.getPosition().getYPosition();
+      orientations[index] = obstacle.getVelocity().getOrientation();
+      alongs[index] = obstacle.getSize().getAlong();
+      acrosses[index] = obstacle.getSize().getAcross();
+      colors[index] = obstacle.getColor().getRGB();
+    }
+
+    this.timeElapsed = timeElapsed;
+    this.tickCount = tickCount;
+
+  }
+
+  /**
+   * Empties this Snapshot to be filled body by body with setBody(), as a replay does
+   * Must only be called on a Snapshot that is not published
+   *
+   * @param numVehicles the number of vehicles
+   * @param numObstacles the number of obstacles, which come after the vehicles
+   * @param timeElapsed the simulated time, in seconds
+   * @param tickCount the number of intervals simulated
+   */
+  public void reset(int numVehicles, int numObstacles, double timeElapsed, long tickCount) {
+
+    ensureCapacity(numVehicles + numObstacles);
+
+    this.numVehicles = numVehicles;
+    this.numObstacles = numObstacles;
+    this.timeElapsed = timeElapsed;
+    this.tickCount = tickCount;
+
+  }
+
+  public void setBody(int index, double xPosition, double yPosition, double orientation, double along, double across,
+                      int color) {
+
+    xPositions[index] = xPosition;
+    yPositions[index] = yPosition;
+    orientations[index] = orientation;
+    alongs[index] = along;
+    acrosses[index] = across;
+    colors[index] = color;
+
+  }
+
+  public int getNumVehicles() {
+    return numVehicles;
+  }
+
+  public int getNumObstacles() {
+    return numObstacles;
+  }
+
+  /**
+   *
+   * @return the number of vehicles and obstacles
+   */
+  public int getNumBodies() {
+    return numVehicles + numObstacles;
+  }
+
+  public double getTimeElapsed() {
+    return timeElapsed;
+  }
+
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  public double getXPosition(int index) {
+    return xPositions[index];
+  }
+
+  public double getYPosition(int index) {
+    return yPositions[index];
+  }
+
+  public double getOrientation(int index) {
+    return orientations[index];
+  }
+
+  public double getAlong(int index) {
+    return alongs[index];
+  }
+
+  public double getAcross(int index) {
+    return acrosses[index];
+  }
+
+  /**
+   *
+   * @param index the index of the body
+   * @return its color, in the sRGB form of Color.getRGB()
+   */
+  public int getColor(int index) {
+    return colors[index];
+  }
+
+}
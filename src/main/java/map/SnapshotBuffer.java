@@ -0,0 +1,63 @@
+package map;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class SnapshotBuffer {
+
+  private static final int INDEX_MASK = 3;
+  private static final int FRESH = 4; // set when the middle Snapshot has been published and not yet read
+
+  private final Snapshot[] snapshots;
+  private final AtomicInteger middle; // the index of the Snapshot between the writer and the reader, and FRESH
+  private int back; // only touched by the writer
+  private int front; // only touched by the reader
+
+  /**
+   * The SnapshotBuffer is a lock-free triple buffer between one writer, the simulation thread, and one reader, the renderer
+   * The writer fills the back Snapshot and swaps it with the middle one; the reader swaps the middle one with its front
+   * one whenever a newer one has been published. Neither ever waits, and each owns its Snapshot until the next swap
+   */
+  public SnapshotBuffer() {
+
+    snapshots = new Snapshot[] {new Snapshot(), new Snapshot(), new Snapshot()};
+
+    back = 0;
+    middle = new AtomicInteger(1);
+    front = 2;
+
+  }
+
+  /**
+   *
+   * @return the Snapshot the writer may fill, until the next call to publish()
+   */
+  public Snapshot getBack() {
+    return snapshots[back];
+  }
+
+  /**
+   * makes the back Snapshot the latest one
+   */
+  public void publish() {
+    back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+  }
+
+  /**
+   *
+   * @return the latest published Snapshot, which the reader may use until the next call to getLatest()
+   */
+  public Snapshot getLatest() {
+
+    if((middle.get() & FRESH) != 0) front = middle.getAndSet(front) & INDEX_MASK;
+
+    return snapshots[front];
+  }
+
+}
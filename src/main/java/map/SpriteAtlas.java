@@ -0,0 +1,196 @@
+package map;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class SpriteAtlas {
+
+  /**
+   * the number of orientations a sprite is rotated to; orientations are rounded to the closest of them
+   */
+  public static final int NUM_ANGLES = 256;
+
+  private static final double[] COSINES = new double[NUM_ANGLES];
+  private static final double[] SINES = new double[NUM_ANGLES];
+
+  static {
+    for(int angle = 0; angle < NUM_ANGLES; angle++) {
+      COSINES[angle] = Math.cos(2 * Math.PI * angle / NUM_ANGLES);
+      SINES[angle] = Math.sin(2 * Math.PI * angle / NUM_ANGLES);
+    }
+  }
+
+  private final BufferedImage image;
+  private final GraphicsConfiguration graphicsConfiguration;
+
+  // the sprites by size in pixels, then by angle; there are only a few sizes of bodies, so they are searched in turn,
+  // starting with the size drawn last, without boxing a key on every draw
+
+  private int[] alongs;
+  private int[] acrosses;
+  private Sprite[][] sprites;
+  private int numSizes;
+  private int lastSize;
+
+  private final int[] xCorners;
+  private final int[] yCorners;
+
+  /**
+   * a rotated and scaled copy of the image, whose center has to be drawn at the center of the body
+   */
+  private static class Sprite {
+
+    private final Image image;
+    private final int xCenter;
+    private final int yCenter;
+
+    public Sprite(Image image, int xCenter, int yCenter) {
+      this.image = image;
+      this.xCenter = xCenter;
+      this.yCenter = yCenter;
+    }
+
+  }
+
+  /**
+   * The SpriteAtlas draws an image onto rotated bodies with plain blits: the image is scaled to each size of body and
+   * rotated to each of NUM_ANGLES orientations once, the first time it is needed, instead of on every draw
+   * A SpriteAtlas must only be used by one thread
+   *
+   * @param image the image of the bodies, along its width
+   * @param graphicsConfiguration the configuration of the screen the sprites are drawn on, so that they can be kept in
+   * video memory; null when drawing off-screen
+   */
+  public SpriteAtlas(BufferedImage image, GraphicsConfiguration graphicsConfiguration) {
+
+    this.image = image;
+    this.graphicsConfiguration = graphicsConfiguration;
+
+    alongs = new int[4];
+    acrosses = new int[4];
+    sprites = new Sprite[4][];
+    numSizes = 0;
+    lastSize = 0;
+
+    xCorners = new int[4];
+    yCorners = new int[4];
+
+  }
+
+  /**
+   *
+   * @param orientation an orientation in radians
+   * @return the closest of the NUM_ANGLES angles
+   */
+  public static int getAngle(double orientation) {
+    return (int)Math.round(orientation / (2 * Math.PI) * NUM_ANGLES) & (NUM_ANGLES - 1);
+  }
+
+  private Sprite getSprite(int along, int across, int angle) {
+
+    Sprite[] spritesOfSize = getSprites(along, across);
+
+    if(spritesOfSize[angle] == null) spritesOfSize[angle] = createSprite(along, across, angle);
+
+    return spritesOfSize[angle];
+  }
+
+  /**
+   *
+   * @return the sprites of a size, by angle, created empty the first time the size is drawn
+   */
+  private Sprite[] getSprites(int along, int across) {
+
+    if(lastSize < numSizes && alongs[lastSize] == along && acrosses[lastSize] == across) return sprites[lastSize];
+
+    for(int size = 0; size < numSizes; size++) if(alongs[size] == along && acrosses[size] == across) {
+      lastSize = size;
+      return sprites[size];
+    }
+
+    if(numSizes == alongs.length) {
+      alongs = Arrays.copyOf(alongs, numSizes * 2);
+      acrosses = Arrays.copyOf(acrosses, numSizes * 2);
+      sprites = Arrays.copyOf(sprites, numSizes * 2);
+    }
+
+    alongs[numSizes] = along;
+    acrosses[numSizes] = across;
+    sprites[numSizes] = new Sprite[NUM_ANGLES];
+    lastSize = numSizes++;
+
+    return sprites[lastSize];
+  }
+
+  private Sprite createSprite(int along, int across, int angle) {
+
+    double cosine = Math.abs(COSINES[angle]);
+    double sine = Math.abs(SINES[angle]);
+
+    int width = (int)Math.ceil(along * cosine + across * sine) + 2;
+    int height = (int)Math.ceil(along * sine + across * cosine) + 2;
+
+    BufferedImage sprite = graphicsConfiguration != null
+        ? graphicsConfiguration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+        : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+    Graphics2D graphics2D = sprite.createGraphics();
+
+    graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    graphics2D.rotate(2 * Math.PI * angle / NUM_ANGLES, width / 2., height / 2.);
+    graphics2D.drawImage(image, (int)Math.round((width - along) / 2.), (int)Math.round((height - across) / 2.),
+        along, across, null);
+    graphics2D.dispose();
+
+    return new Sprite(sprite, width / 2, height / 2);
+  }
+
+  /**
+   * Fills the rotated rectangle of the body with its color, then blits the sprite over it,
+   * as drawing the image with a background color in a rotated Graphics2D would
+   *
+   * @param graphics2D graphics2D, not rotated
+   * @param xPosition the horizontal position of the center of the body, in meters
+   * @param yPosition the vertical position of the center of the body, in meters
+   * @param orientation the orientation of the body
+   * @param along the length of the body, in meters
+   * @param across the width of the body, in meters
+   */
+  public void draw(Graphics2D graphics2D, double xPosition, double yPosition, double orientation,
+                   double along, double across) {
+
+    int angle = getAngle(orientation);
+    int alongPixels = (int)Math.round(along * Main.PIXELS_PER_METER);
+    int acrossPixels = (int)Math.round(across * Main.PIXELS_PER_METER);
+    int xCenter = (int)Math.round(xPosition * Main.PIXELS_PER_METER);
+    int yCenter = (int)Math.round(yPosition * Main.PIXELS_PER_METER);
+
+    double cosine = COSINES[angle];
+    double sine = SINES[angle];
+    double halfAlong = alongPixels / 2.;
+    double halfAcross = acrossPixels / 2.;
+
+    for(int corner = 0; corner < 4; corner++) {
+      double u = (corner == 0 || corner == 3) ? halfAlong : -halfAlong;
+      double v = (corner < 2) ? halfAcross : -halfAcross;
+      xCorners[corner] = xCenter + (int)Math.round(u * cosine - v * sine);
+      yCorners[corner] = yCenter + (int)Math.round(u * sine + v * cosine);
+    }
+
+    graphics2D.fillPolygon(xCorners, yCorners, 4);
+
+    Sprite sprite = getSprite(alongPixels, acrossPixels, angle);
+
+    graphics2D.drawImage(sprite.image, xCenter - sprite.xCenter, yCenter - sprite.yCenter, null);
+
+  }
+
+}
@@ -0,0 +1,419 @@
+package map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class TickProfiler implements TickProfilerMBean {
+
+  /**
+   * by default, one tick out of this many is timed
+   */
+  public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+  // the phases of a tick, in the order they run
+
+  public static final int CLEAN = 0; // Crossroad.cleanVehicles(), with the respawns
+  public static final int STATE = 1; // the states of the vehicles
+  public static final int ACCELERATION = 2; // the compute phase, possibly on the fork/join pool
+  public static final int INTEGRATION = 3; // the apply phase, Kinematics.integrate() of every vehicle
+  public static final int REINDEX = 4; // the indices of the Lanes
+  public static final int OBSTACLES = 5; // Obstacle.passTime() of every obstacle
+  public static final int NUM_PHASES = 6;
+
+  // the counters accumulated over the sampled ticks, after the phases
+
+  private static final int TICK = NUM_PHASES;
+  private static final int VEHICLES = NUM_PHASES + 1;
+  private static final int LANE_TESTS = NUM_PHASES + 2;
+  private static final int ALLOCATED_BYTES = NUM_PHASES + 3;
+  private static final int SAMPLED_TICKS = NUM_PHASES + 4;
+  private static final int NUM_COUNTERS = NUM_PHASES + 5;
+
+  private static final EventType TICK_EVENT_TYPE = EventType.getEventType(TickEvent.class);
+  private static final EventType PAINT_EVENT_TYPE = EventType.getEventType(PaintEvent.class);
+
+  /**
+   * a sampled tick, as shown by JDK Mission Control and jfr print --events map.Tick
+   */
+  @Name("map.Tick")
+  @Label("Tick")
+  @Category({"Traffic Simulation"})
+  @Description("The time spent in each phase of a sampled interval of a Crossroad")
+  public static class TickEvent extends Event {
+
+    @Label("Tick Count")
+    public long tickCount;
+
+    @Label("Vehicles")
+    public int vehicles;
+
+    @Label("Lane Tests")
+    public long laneTests;
+
+    @Label("Allocated Bytes")
+    public long allocatedBytes;
+
+    @Label("Clean") @Timespan(Timespan.NANOSECONDS)
+    public long cleanNanos;
+
+    @Label("State") @Timespan(Timespan.NANOSECONDS)
+    public long stateNanos;
+
+    @Label("Acceleration") @Timespan(Timespan.NANOSECONDS)
+    public long accelerationNanos;
+
+    @Label("Integration") @Timespan(Timespan.NANOSECONDS)
+    public long integrationNanos;
+
+    @Label("Reindex") @Timespan(Timespan.NANOSECONDS)
+    public long reindexNanos;
+
+    @Label("Obstacles") @Timespan(Timespan.NANOSECONDS)
+    public long obstacleNanos;
+
+  }
+
+  @Name("map.Paint")
+  @Label("Paint")
+  @Category({"Traffic Simulation"})
+  @Description("A repaint of the DisplayPanel")
+  public static class PaintEvent extends Event {
+
+    @Label("Bodies")
+    public int bodies;
+
+  }
+
+  private final ThreadMXBean threadMXBean;
+  private final boolean countsAllocations;
+
+  private volatile int sampleInterval;
+  private final AtomicLongArray counters; // written by the stepping thread only, read by JMX
+  private volatile long numTicks;
+  private volatile long numPaints;
+  private volatile long paintNanos;
+
+  // the tick being sampled, only touched by the stepping thread
+
+  private boolean sampling;
+  private final long[] phaseNanos;
+  private long tickStart;
+  private long lastMark;
+  private long startLaneTests;
+  private long startAllocatedBytes;
+  private TickEvent tickEvent;
+
+  // the paint in progress, only touched by the painting thread
+
+  private long paintStart;
+  private PaintEvent paintEvent;
+
+  /**
+   * The TickProfiler times the phases of one tick out of getSampleInterval(), so that it can be left on: the other ticks
+   * only cost a test of a boolean per phase, and a sampled one a call to System.nanoTime() per phase
+   * The totals are exposed as a JMX MBean once register() has been called, and every sampled tick is also a map.Tick
+   * event of the JDK Flight Recorder whenever a recording enables it
+   * The ticks must be stepped by one thread, and paints recorded by one other thread
+   */
+  public TickProfiler() {
+
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+    if(bean instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+      ((com.sun.management.ThreadMXBean)bean).setThreadAllocatedMemoryEnabled(true);
+      countsAllocations = true;
+    } else {
+      countsAllocations = false;
+    }
+
+    threadMXBean = bean;
+
+    sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+    counters = new AtomicLongArray(NUM_COUNTERS);
+    phaseNanos = new long[NUM_PHASES];
+
+    reset();
+
+  }
+
+  /**
+   * registers this TickProfiler with the platform MBean server, under map:type=TickProfiler,name=[name]
+   *
+   * @param name the name of the profiled simulation
+   */
+  public void register(String name) {
+
+    try {
+
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName("map:type=TickProfiler,name=" + ObjectName.quote(name));
+
+      if(server.isRegistered(objectName)) server.unregisterMBean(objectName);
+      server.registerMBean(this, objectName);
+
+    } catch(JMException e) {
+      System.out.printf("ERROR REGISTERING PROFILER: %s\n", e.getMessage());
+    }
+
+  }
+
+  private long getAllocatedBytes() {
+    return countsAllocations
+        ? ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+
+  /**
+   * starts a tick, and times it if it is one of the sampled ticks
+   *
+   * @param crossroad the Crossroad stepped during the tick
+   */
+  public void beginTick(Crossroad crossroad) {
+
+    sampling = numTicks++ % sampleInterval == 0;
+
+    if(!sampling) return;
+
+    for(int phase = 0; phase < NUM_PHASES; phase++) phaseNanos[phase] = 0;
+
+    startLaneTests = crossroad.getNumLaneTests();
+    startAllocatedBytes = getAllocatedBytes();
+
+    tickEvent = TICK_EVENT_TYPE.isEnabled() ? new TickEvent() : null;
+    if(tickEvent != null) tickEvent.begin();
+
+    tickStart = System.nanoTime();
+    lastMark = tickStart;
+
+  }
+
+  /**
+   * ends a phase of a sampled tick: the time since the end of the previous phase is added to it
+   *
+   * @param phase one of the phases
+   */
+  public void mark(int phase) {
+
+    if(!sampling) return;
+
+    long now = System.nanoTime();
+
+    phaseNanos[phase] += now - lastMark;
+    lastMark = now;
+
+  }
+
+  /**
+   * ends a tick, adding it to the totals and emitting its event if it was sampled
+   *
+   * @param crossroad the Crossroad stepped during the tick
+   */
+  public void endTick(Crossroad crossroad) {
+
+    if(!sampling) return;
+
+    sampling = false;
+
+    long tickNanos = System.nanoTime() - tickStart;
+    long laneTests = crossroad.getNumLaneTests() - startLaneTests;
+    long allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+    int vehicles = crossroad.getVehicleStore().size();
+
+    for(int phase = 0; phase < NUM_PHASES; phase++) add(phase, phaseNanos[phase]);
+
+    add(TICK, tickNanos);
+    add(VEHICLES, vehicles);
+    add(LANE_TESTS, laneTests);
+    add(ALLOCATED_BYTES, allocatedBytes);
+    add(SAMPLED_TICKS, 1);
+
+    if(tickEvent == null) return;
+
+    tickEvent.end();
+
+    if(tickEvent.shouldCommit()) {
+      tickEvent.tickCount = numTicks - 1;
+      tickEvent.vehicles = vehicles;
+      tickEvent.laneTests = laneTests;
+      tickEvent.allocatedBytes = allocatedBytes;
+      tickEvent.cleanNanos = phaseNanos[CLEAN];
+      tickEvent.stateNanos = phaseNanos[STATE];
+      tickEvent.accelerationNanos = phaseNanos[ACCELERATION];
+      tickEvent.integrationNanos = phaseNanos[INTEGRATION];
+      tickEvent.reindexNanos = phaseNanos[REINDEX];
+      tickEvent.obstacleNanos = phaseNanos[OBSTACLES];
+      tickEvent.commit();
+    }
+
+    tickEvent = null;
+
+  }
+
+  /**
+   * the counters only have one writer, so an ordered store is enough for the readers to see them
+   */
+  private void add(int counter, long value) {
+    counters.lazySet(counter, counters.get(counter) + value);
+  }
+
+  /**
+   * starts timing a paint of the display; paints are rare enough to time every one of them
+   */
+  public void beginPaint() {
+
+    paintEvent = PAINT_EVENT_TYPE.isEnabled() ? new PaintEvent() : null;
+    if(paintEvent != null) paintEvent.begin();
+
+    paintStart = System.nanoTime();
+
+  }
+
+  /**
+   *
+   * @param bodies the number of bodies painted
+   */
+  public void endPaint(int bodies) {
+
+    paintNanos += System.nanoTime() - paintStart;
+    numPaints++;
+
+    if(paintEvent == null) return;
+
+    paintEvent.end();
+
+    if(paintEvent.shouldCommit()) {
+      paintEvent.bodies = bodies;
+      paintEvent.commit();
+    }
+
+    paintEvent = null;
+
+  }
+
+  public int getSampleInterval() {
+    return sampleInterval;
+  }
+
+  /**
+   *
+   * @param sampleInterval one tick out of this many is timed; 1 times every tick
+   */
+  public void setSampleInterval(int sampleInterval) {
+    this.sampleInterval = Math.max(1, sampleInterval);
+  }
+
+  public long getNumTicks() {
+    return numTicks;
+  }
+
+  public long getNumSampledTicks() {
+    return counters.get(SAMPLED_TICKS);
+  }
+
+  private double getMean(int counter) {
+    long numSampledTicks = counters.get(SAMPLED_TICKS);
+    return numSampledTicks > 0 ? (double)counters.get(counter) / numSampledTicks : Double.NaN;
+  }
+
+  public double getMeanTickNanos() {
+    return getMean(TICK);
+  }
+
+  public double getMeanCleanNanos() {
+    return getMean(CLEAN);
+  }
+
+  public double getMeanStateNanos() {
+    return getMean(STATE);
+  }
+
+  public double getMeanAccelerationNanos() {
+    return getMean(ACCELERATION);
+  }
+
+  public double getMeanIntegrationNanos() {
+    return getMean(INTEGRATION);
+  }
+
+  public double getMeanReindexNanos() {
+    return getMean(REINDEX);
+  }
+
+  public double getMeanObstacleNanos() {
+    return getMean(OBSTACLES);
+  }
+
+  public double getMeanVehicles() {
+    return getMean(VEHICLES);
+  }
+
+  public double getMeanLaneTests() {
+    return getMean(LANE_TESTS);
+  }
+
+  public double getMeanAllocatedBytes() {
+    return countsAllocations ? getMean(ALLOCATED_BYTES) : Double.NaN;
+  }
+
+  public long getNumPaints() {
+    return numPaints;
+  }
+
+  public double getMeanPaintNanos() {
+    return numPaints > 0 ? (double)paintNanos / numPaints : Double.NaN;
+  }
+
+  /**
+   * clears the totals; a tick or a paint in progress may still be added to the new totals
+   */
+  public void reset() {
+
+    for(int counter = 0; counter < NUM_COUNTERS; counter++) counters.set(counter, 0);
+
+    numTicks = 0;
+    numPaints = 0;
+    paintNanos = 0;
+
+  }
+
+  /**
+   * writes the mean breakdown of the sampled ticks
+   *
+   * @param output where the report is written
+   */
+  public void writeReport(PrintStream output) {
+
+    output.println(String.format("TICK PROFILE OVER %d SAMPLED TICKS OUT OF %d: %.0f NANOSECONDS PER TICK",
+        getNumSampledTicks(), numTicks, getMeanTickNanos()));
+    output.println(String.format("  CLEAN %.0f, STATE %.0f, ACCELERATION %.0f, INTEGRATION %.0f, REINDEX %.0f, OBSTACLES %.0f NANOSECONDS",
+        getMeanCleanNanos(), getMeanStateNanos(), getMeanAccelerationNanos(), getMeanIntegrationNanos(),
+        getMeanReindexNanos(), getMeanObstacleNanos()));
+    output.println(String.format("  %.1f VEHICLES, %.1f LANE TESTS, %.0f BYTES ALLOCATED PER TICK",
+        getMeanVehicles(), getMeanLaneTests(), getMeanAllocatedBytes()));
+
+    if(numPaints > 0)
+      output.println(String.format("  %d PAINTS, %.0f NANOSECONDS PER PAINT", numPaints, getMeanPaintNanos()));
+
+  }
+
+}
@@ -0,0 +1,54 @@
+package map;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public interface TickProfilerMBean {
+
+  /**
+   * the management interface of TickProfiler, as JMX requires for a standard MBean; every mean is over the sampled ticks
+   */
+
+  int getSampleInterval();
+
+  void setSampleInterval(int sampleInterval);
+
+  long getNumTicks();
+
+  long getNumSampledTicks();
+
+  double getMeanTickNanos();
+
+  double getMeanCleanNanos();
+
+  double getMeanStateNanos();
+
+  double getMeanAccelerationNanos();
+
+  double getMeanIntegrationNanos();
+
+  double getMeanReindexNanos();
+
+  double getMeanObstacleNanos();
+
+  double getMeanVehicles();
+
+  double getMeanLaneTests();
+
+  /**
+   *
+   * @return the mean number of bytes allocated by the stepping thread per tick, or NaN if the JVM does not count them
+   */
+  double getMeanAllocatedBytes();
+
+  long getNumPaints();
+
+  double getMeanPaintNanos();
+
+  void reset();
+
+}
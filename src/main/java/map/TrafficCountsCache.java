@@ -0,0 +1,403 @@
+package map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 1,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class TrafficCountsCache {
+
+  public static final int MAGIC = 0x54434e54;
+  public static final int VERSION = 1;
+
+  /**
+   * the extension of a cache, which tells it apart from a table of counts
+   */
+  public static final String EXTENSION = ".counts";
+
+  // the dictionaries, in the order of the file
+
+  public static final int ROADWAY = 0;
+  public static final int FROM = 1;
+  public static final int TO = 2;
+  public static final int DIRECTION = 3;
+  private static final int NUM_DICTIONARIES = 4;
+
+  // the int columns, in the order of the file: the columns coded by the dictionaries, then the hourly counts
+
+  private static final int ID_COLUMN = 4;
+  private static final int SEGMENT_COLUMN = 5;
+  private static final int DATE_COLUMN = 6;
+  private static final int COUNT_COLUMN = 7;
+  private static final int NUM_COLUMNS = COUNT_COLUMN + TrafficCountsReader.NUM_HOURS;
+
+  // the indices, after the columns: the rows sorted by segment then date, by roadway then date, and by date
+
+  private static final int SEGMENT_INDEX = 0;
+  private static final int ROADWAY_INDEX = 1;
+  private static final int DATE_INDEX = 2;
+  private static final int NUM_INDICES = 3;
+
+  private static final int[] INDEX_COLUMNS = {SEGMENT_COLUMN, ROADWAY, -1};
+
+  private final ByteBuffer buffer;
+  private final int numRows;
+  private final String[][] dictionaries;
+  private final int columnsOffset;
+
+  /**
+   * The TrafficCountsCache maps a cache written by convert() into memory, so that opening it only reads its
+   * dictionaries, and a lookup through one of its indices only touches the rows it returns
+   * The file holds, after its header, the four dictionaries of the strings, then the columns of the table as ints,
+   * the strings coded by the dictionaries, the dates as days since 1/1/1970, the missing counts as MISSING, then the
+   * indices: the rows sorted by segment, by roadway name and by date, each of them then by date and by row
+   *
+   * @param address the address of the cache
+   */
+  public TrafficCountsCache(String address) throws IOException {
+
+    try(RandomAccessFile file = new RandomAccessFile(address, "r"); FileChannel channel = file.getChannel()) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if(buffer.getInt(0) != MAGIC) throw new IOException(String.format("NOT A TRAFFIC COUNTS CACHE: %s", address));
+    if(buffer.getInt(4) != VERSION) throw new IOException(String.format(
+        "UNSUPPORTED TRAFFIC COUNTS CACHE VERSION: %d", buffer.getInt(4)));
+
+    numRows = buffer.getInt(8);
+
+    int position = 12;
+
+    dictionaries = new String[NUM_DICTIONARIES][];
+
+    for(int dictionary = 0; dictionary < NUM_DICTIONARIES; dictionary++) {
+
+      dictionaries[dictionary] = new String[buffer.getInt(position)];
+      position += 4;
+
+      for(int code = 0; code < dictionaries[dictionary].length; code++) {
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.position(position + 4);
+        buffer.get(bytes);
+        dictionaries[dictionary][code] = new String(bytes, StandardCharsets.UTF_8);
+        position += 4 + bytes.length;
+      }
+
+    }
+
+    columnsOffset = position;
+
+  }
+
+  /**
+   * Streams a table of counts once and writes its cache; the strings of each dictionary are sorted regardless of
+   * case, so that the names differing only by their case have consecutive codes
+   *
+   * @param countsAddress the address of the table
+   * @param cacheAddress the address of the cache
+   * @return the number of rows
+   */
+  public static int convert(String countsAddress, String cacheAddress) throws IOException {
+
+    ArrayList<String[]> strings = new ArrayList<>();
+    ArrayList<int[]> rows = new ArrayList<>();
+
+    Comparator<String> order = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    ArrayList<TreeSet<String>> names = new ArrayList<>();
+    for(int dictionary = 0; dictionary < NUM_DICTIONARIES; dictionary++) names.add(new TreeSet<>(order));
+
+    try(TrafficCountsReader reader = new TrafficCountsReader(countsAddress)) {
+
+      while(reader.next()) {
+
+        String[] rowStrings = {reader.getRoadwayName(), reader.getFrom(), reader.getTo(), reader.getDirection()};
+        for(int dictionary = 0; dictionary < NUM_DICTIONARIES; dictionary++)
+          names.get(dictionary).add(rowStrings[dictionary]);
+        strings.add(rowStrings);
+
+        long segmentId = reader.getSegmentId();
+        if(segmentId < 0 || segmentId >= Integer.MAX_VALUE) throw new IOException(String.format(
+            "TRAFFIC COUNTS LINE %d: SEGMENT ID OUT OF RANGE: %d", reader.getLineNumber(), segmentId));
+
+        int[] row = new int[NUM_COLUMNS];
+        row[ID_COLUMN] = reader.getId();
+        row[SEGMENT_COLUMN] = (int)segmentId;
+        row[DATE_COLUMN] = reader.getEpochDay();
+        for(int hour = 0; hour < TrafficCountsReader.NUM_HOURS; hour++) row[COUNT_COLUMN + hour] = reader.getCount(hour);
+        rows.add(row);
+
+      }
+
+    }
+
+    ArrayList<HashMap<String, Integer>> codes = new ArrayList<>();
+
+    for(TreeSet<String> dictionary: names) {
+      HashMap<String, Integer> dictionaryCodes = new HashMap<>();
+      for(String name: dictionary) dictionaryCodes.put(name, dictionaryCodes.size());
+      codes.add(dictionaryCodes);
+    }
+
+    for(int row = 0; row < rows.size(); row++) for(int dictionary = 0; dictionary < NUM_DICTIONARIES; dictionary++)
+      rows.get(row)[dictionary] = codes.get(dictionary).get(strings.get(row)[dictionary]);
+
+    try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheAddress)))) {
+
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(rows.size());
+
+      for(TreeSet<String> dictionary: names) {
+        output.writeInt(dictionary.size());
+        for(String name: dictionary) {
+          byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+          output.writeInt(bytes.length);
+          output.write(bytes);
+        }
+      }
+
+      for(int column = 0; column < NUM_COLUMNS; column++) for(int[] row: rows) output.writeInt(row[column]);
+
+      for(int index = 0; index < NUM_INDICES; index++) {
+
+        int keyColumn = INDEX_COLUMNS[index];
+
+        Integer[] sorted = new Integer[rows.size()];
+        for(int row = 0; row < sorted.length; row++) sorted[row] = row;
+
+        Arrays.sort(sorted, Comparator.<Integer>comparingInt(row -> keyColumn < 0 ? 0 : rows.get(row)[keyColumn])
+            .thenComparingInt(row -> rows.get(row)[DATE_COLUMN]).thenComparingInt(row -> row));
+
+        for(int row: sorted) output.writeInt(row);
+
+      }
+
+    }
+
+    return rows.size();
+  }
+
+  public int getNumRows() {
+    return numRows;
+  }
+
+  private int getInt(int column, int row) {
+    return buffer.getInt(columnsOffset + 4 * (column * numRows + row));
+  }
+
+  private int getIndexRow(int index, int rank) {
+    return buffer.getInt(columnsOffset + 4 * ((NUM_COLUMNS + index) * numRows + rank));
+  }
+
+  public int getId(int row) {
+    return getInt(ID_COLUMN, row);
+  }
+
+  public long getSegmentId(int row) {
+    return getInt(SEGMENT_COLUMN, row);
+  }
+
+  public String getRoadwayName(int row) {
+    return dictionaries[ROADWAY][getInt(ROADWAY, row)];
+  }
+
+  public String getFrom(int row) {
+    return dictionaries[FROM][getInt(FROM, row)];
+  }
+
+  public String getTo(int row) {
+    return dictionaries[TO][getInt(TO, row)];
+  }
+
+  public String getDirection(int row) {
+    return dictionaries[DIRECTION][getInt(DIRECTION, row)];
+  }
+
+  public int getEpochDay(int row) {
+    return getInt(DATE_COLUMN, row);
+  }
+
+  /**
+   *
+   * @param row a row
+   * @param hour from 0, for 12:00-1:00 AM, to 23
+   * @return the number of vehicles counted during the hour, or TrafficCountsReader.MISSING
+   */
+  public int getCount(int row, int hour) {
+    return getInt(COUNT_COLUMN + hour, row);
+  }
+
+  /**
+   *
+   * @return the first rank of the index whose row comes at or after the key and the date
+   */
+  private int lowerBound(int index, int key, int epochDay) {
+
+    int keyColumn = INDEX_COLUMNS[index];
+    int low = 0;
+    int high = numRows;
+
+    while(low < high) {
+
+      int middle = (low + high) >>> 1;
+      int row = getIndexRow(index, middle);
+      int rowKey = keyColumn < 0 ? 0 : getInt(keyColumn, row);
+
+      if(rowKey < key || (rowKey == key && getInt(DATE_COLUMN, row) < epochDay)) low = middle + 1;
+      else high = middle;
+
+    }
+
+    return low;
+  }
+
+  /**
+   * appends the rows of an index with the key and a date in the range
+   */
+  private void findRows(int index, int key, int fromDay, int toDay, ArrayList<Integer> rows) {
+
+    int end = toDay == Integer.MAX_VALUE ? lowerBound(index, key + 1, Integer.MIN_VALUE)
+        : lowerBound(index, key, toDay + 1);
+
+    for(int rank = lowerBound(index, key, fromDay); rank < end; rank++) rows.add(getIndexRow(index, rank));
+
+  }
+
+  private static int[] toArray(ArrayList<Integer> rows) {
+
+    int[] array = new int[rows.size()];
+    for(int i = 0; i < array.length; i++) array[i] = rows.get(i);
+
+    return array;
+  }
+
+  /**
+   *
+   * @param segmentId a segment
+   * @param fromDay the first date kept, as a number of days since 1/1/1970
+   * @param toDay the last date kept
+   * @return the rows of the segment between the dates, sorted by date
+   */
+  public int[] findSegment(long segmentId, int fromDay, int toDay) {
+
+    ArrayList<Integer> rows = new ArrayList<>();
+
+    if(segmentId >= Integer.MIN_VALUE && segmentId < Integer.MAX_VALUE)
+      findRows(SEGMENT_INDEX, (int)segmentId, fromDay, toDay, rows);
+
+    return toArray(rows);
+  }
+
+  /**
+   *
+   * @param roadwayName the name of a roadway, regardless of its case
+   * @param fromDay the first date kept, as a number of days since 1/1/1970
+   * @param toDay the last date kept
+   * @return the rows of the roadway between the dates, sorted by the spelling of the name, then by date
+   */
+  public int[] findRoadway(String roadwayName, int fromDay, int toDay) {
+
+    String[] roadways = dictionaries[ROADWAY];
+
+    int code = Arrays.binarySearch(roadways, roadwayName, String.CASE_INSENSITIVE_ORDER);
+
+    ArrayList<Integer> rows = new ArrayList<>();
+
+    if(code < 0) return toArray(rows);
+
+    while(code > 0 && roadways[code - 1].equalsIgnoreCase(roadwayName)) code--;
+
+    for(; code < roadways.length && roadways[code].equalsIgnoreCase(roadwayName); code++)
+      findRows(ROADWAY_INDEX, code, fromDay, toDay, rows);
+
+    return toArray(rows);
+  }
+
+  /**
+   *
+   * @param fromDay the first date kept, as a number of days since 1/1/1970
+   * @param toDay the last date kept
+   * @return the rows between the dates, sorted by date
+   */
+  public int[] findDates(int fromDay, int toDay) {
+
+    ArrayList<Integer> rows = new ArrayList<>();
+
+    findRows(DATE_INDEX, 0, fromDay, toDay, rows);
+
+    return toArray(rows);
+  }
+
+  /**
+   * averages the hourly counts of some segments by origin, as TrafficCountsReader.readHourlyVolumes() does for a table
+   *
+   * @param segmentIds the segments crossing at the Crossroad
+   * @param epochDay the date to keep, as a number of days since 1/1/1970, or Integer.MIN_VALUE to keep every date
+   * @return the mean number of vehicles coming from each origin during each hour, 0 where nothing was counted
+   */
+  public double[][] getHourlyVolumes(long[] segmentIds, int epochDay) {
+
+    double[][] sums = new double[4][TrafficCountsReader.NUM_HOURS];
+    int[][] numCounts = new int[4][TrafficCountsReader.NUM_HOURS];
+
+    for(long segmentId: segmentIds) {
+
+      int[] rows = epochDay == Integer.MIN_VALUE ? findSegment(segmentId, Integer.MIN_VALUE, Integer.MAX_VALUE)
+          : findSegment(segmentId, epochDay, epochDay);
+
+      for(int row: rows) {
+
+        int origin = TrafficCountsReader.getOrigin(getDirection(row));
+        if(origin < 0) continue;
+
+        for(int hour = 0; hour < TrafficCountsReader.NUM_HOURS; hour++) {
+          int count = getCount(row, hour);
+          if(count != TrafficCountsReader.MISSING) {
+            sums[origin][hour] += count;
+            numCounts[origin][hour]++;
+          }
+        }
+
+      }
+
+    }
+
+    return TrafficCountsReader.average(sums, numCounts);
+  }
+
+  /**
+   * Usage: TrafficCountsCache [table address] [cache address]
+   * Converts a table of counts into its cache, by default the table of the data folder into a cache next to it
+   */
+  public static void main(String[] args) throws IOException {
+
+    String countsAddress = args.length > 0 ? args[0] : TrafficCountsReader.COUNTS_ADDRESS;
+    String cacheAddress = args.length > 1 ? args[1] : countsAddress.replaceFirst("\\.csv$", "") + EXTENSION;
+
+    long startTime = System.nanoTime();
+
+    int numRows = convert(countsAddress, cacheAddress);
+
+    System.out.println(String.format("%d ROWS CONVERTED INTO %s IN %.2f SECONDS",
+        numRows, cacheAddress, (System.nanoTime() - startTime) / 1e9));
+
+  }
+
+}
@@ -0,0 +1,281 @@
+package map;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class TrafficCountsReader implements Closeable {
+
+  public static final String COUNTS_ADDRESS = "data/NYCTrafficVolumeCounts.csv";
+
+  public static final int NUM_HOURS = 24;
+
+  /**
+   * the columns before the hourly counts: ID, Segment ID, Roadway Name, From, To, Direction, Date
+   */
+  private static final int NUM_FIELDS = 7;
+
+  /**
+   * stands for an hour without a count
+   */
+  public static final int MISSING = -1;
+
+  private final BufferedReader reader;
+  private final int[] fieldStarts;
+  private final int[] fieldEnds;
+  private final int[] counts;
+  private String line;
+  private int lineNumber;
+
+  /**
+   * The TrafficCountsReader streams the rows of a table of the NYC traffic volume counts, one row at a time, without
+   * keeping any of them: one segment, direction and date per row, followed by its 24 hourly counts
+   * Dates may be written M/d/yyyy or MM/dd/yyyy, and the hours without a count are left blank
+   *
+   * @param reader the source of the table, starting with its header
+   */
+  public TrafficCountsReader(Reader reader) throws IOException {
+
+    this.reader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+
+    fieldStarts = new int[NUM_FIELDS + NUM_HOURS];
+    fieldEnds = new int[NUM_FIELDS + NUM_HOURS];
+    counts = new int[NUM_HOURS];
+
+    if(this.reader.readLine() == null) throw new IOException("TRAFFIC COUNTS: NO HEADER");
+
+    lineNumber = 1;
+
+  }
+
+  public TrafficCountsReader(String address) throws IOException {
+    this(new FileReader(address));
+  }
+
+  private IOException error(String message) {
+    return new IOException(String.format("TRAFFIC COUNTS LINE %d: %s", lineNumber, message));
+  }
+
+  /**
+   * moves to the next row, splitting it at the commas; the fields are only parsed when asked for, except the counts
+   *
+   * @return false at the end of the table
+   */
+  public boolean next() throws IOException {
+
+    do {
+      line = reader.readLine();
+      if(line == null) return false;
+      lineNumber++;
+    } while(line.isEmpty());
+
+    int field = 0;
+    fieldStarts[0] = 0;
+
+    for(int i = 0; i < line.length(); i++) if(line.charAt(i) == ',') {
+      if(field == fieldStarts.length - 1) throw error("TOO MANY COLUMNS");
+      fieldEnds[field++] = i;
+      fieldStarts[field] = i + 1;
+    }
+
+    fieldEnds[field] = line.length();
+
+    if(field != fieldStarts.length - 1) throw error(String.format("%d COLUMNS INSTEAD OF %d",
+        field + 1, fieldStarts.length));
+
+    for(int hour = 0; hour < NUM_HOURS; hour++) counts[hour] = parseCount(NUM_FIELDS + hour);
+
+    return true;
+  }
+
+  private int parseCount(int field) throws IOException {
+
+    if(fieldStarts[field] == fieldEnds[field]) return MISSING;
+
+    int count = 0;
+
+    for(int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+      char digit = line.charAt(i);
+      if(digit < '0' || digit > '9' || count > (Integer.MAX_VALUE - 9) / 10) throw error(String.format(
+          "INVALID COUNT: %s", getField(field)));
+      count = count * 10 + digit - '0';
+    }
+
+    return count;
+  }
+
+  private String getField(int field) {
+    return line.substring(fieldStarts[field], fieldEnds[field]);
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  public int getId() throws IOException {
+    return (int)parseLong(0);
+  }
+
+  public long getSegmentId() throws IOException {
+    return parseLong(1);
+  }
+
+  private long parseLong(int field) throws IOException {
+
+    try {
+      return Long.parseLong(getField(field));
+    } catch(NumberFormatException e) {
+      throw error(String.format("NOT AN INTEGER: %s", getField(field)));
+    }
+
+  }
+
+  public String getRoadwayName() {
+    return getField(2);
+  }
+
+  public String getFrom() {
+    return getField(3);
+  }
+
+  public String getTo() {
+    return getField(4);
+  }
+
+  /**
+   *
+   * @return NB, SB, EB or WB
+   */
+  public String getDirection() {
+    return getField(5);
+  }
+
+  /**
+   *
+   * @return the date of the row, as a number of days since 1/1/1970
+   */
+  public int getEpochDay() throws IOException {
+    return parseEpochDay(getField(6), lineNumber);
+  }
+
+  /**
+   *
+   * @param hour from 0, for 12:00-1:00 AM, to 23
+   * @return the number of vehicles counted during the hour, or MISSING
+   */
+  public int getCount(int hour) {
+    return counts[hour];
+  }
+
+  /**
+   *
+   * @param date a date written M/d/yyyy or MM/dd/yyyy
+   * @param lineNumber the line the date was read from, for the error message
+   * @return the number of days since 1/1/1970
+   */
+  public static int parseEpochDay(String date, int lineNumber) throws IOException {
+
+    int month = date.indexOf('/');
+    int day = date.indexOf('/', month + 1);
+
+    try {
+      return (int)LocalDate.of(Integer.parseInt(date.substring(day + 1)), Integer.parseInt(date.substring(0, month)),
+          Integer.parseInt(date.substring(month + 1, day))).toEpochDay();
+    } catch(RuntimeException e) {
+      throw new IOException(String.format("TRAFFIC COUNTS LINE %d: INVALID DATE: %s", lineNumber, date));
+    }
+
+  }
+
+  /**
+   *
+   * @param direction NB, SB, EB or WB
+   * @return the origin of the Crossroad the vehicles going that way come from, or -1 for any other direction
+   */
+  public static int getOrigin(String direction) {
+
+    switch(direction) {
+      case "WB":
+        return 0;
+      case "NB":
+        return 1;
+      case "EB":
+        return 2;
+      case "SB":
+        return 3;
+      default:
+        return -1;
+    }
+
+  }
+
+  /**
+   * Streams a table once and averages the hourly counts of some segments by origin, over the chosen date or over
+   * every date; the hours without a count are left out of the averages
+   *
+   * @param address the address of the table
+   * @param segmentIds the segments crossing at the Crossroad, usually one for each axis
+   * @param epochDay the date to keep, as a number of days since 1/1/1970, or Integer.MIN_VALUE to keep every date
+   * @return the mean number of vehicles coming from each origin during each hour, 0 where nothing was counted
+   */
+  public static double[][] readHourlyVolumes(String address, long[] segmentIds, int epochDay) throws IOException {
+
+    double[][] sums = new double[4][NUM_HOURS];
+    int[][] numCounts = new int[4][NUM_HOURS];
+
+    try(TrafficCountsReader reader = new TrafficCountsReader(address)) {
+
+      while(reader.next()) {
+
+        long segmentId = reader.getSegmentId();
+
+        boolean kept = false;
+        for(long keptId: segmentIds) if(keptId == segmentId) kept = true;
+
+        if(!kept || (epochDay != Integer.MIN_VALUE && reader.getEpochDay() != epochDay)) continue;
+
+        int origin = getOrigin(reader.getDirection());
+        if(origin < 0) continue;
+
+        for(int hour = 0; hour < NUM_HOURS; hour++) if(reader.getCount(hour) != MISSING) {
+          sums[origin][hour] += reader.getCount(hour);
+          numCounts[origin][hour]++;
+        }
+
+      }
+
+    }
+
+    return average(sums, numCounts);
+  }
+
+  /**
+   *
+   * @param sums the sum of the counts of each origin during each hour, replaced by their mean
+   * @param numCounts the number of counts summed
+   * @return the sums, now the means, 0 where nothing was counted
+   */
+  static double[][] average(double[][] sums, int[][] numCounts) {
+
+    for(int origin = 0; origin < 4; origin++) for(int hour = 0; hour < NUM_HOURS; hour++)
+      if(numCounts[origin][hour] > 0) sums[origin][hour] /= numCounts[origin][hour];
+
+    return sums;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+}
@@ -0,0 +1,246 @@
+package map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 3,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class TrajectoryLog {
+
+  public static final int MAGIC = 0x474f4c54; // "TLOG" in little endian
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 32;
+  public static final int TICK_HEADER_SIZE = 24;
+
+  /**
+   * the bytes of each body in a tick: int id, float x, float y, float heading, float speed, byte phase
+   */
+  public static final int BODY_SIZE = 21;
+
+  /**
+   * the phase of the obstacles; the phase of a vehicle is its state, -1 pre-turn 0 turning 1 post-turn
+   */
+  public static final byte PHASE_OBSTACLE = 2;
+
+  /**
+   * the size of each mapping of the file, so that the file is not mapped again for every tick
+   */
+  public static final long WINDOW_SIZE = 64L << 20;
+
+  /**
+   * the number of ticks between two entries of the keyframe index
+   */
+  public static final int KEYFRAME_INTERVAL = 256;
+
+  /**
+   * the bytes of each entry of the keyframe index: long tick count, double time elapsed, long position of the tick
+   */
+  public static final int KEYFRAME_SIZE = 24;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header; // kept up to date after every tick, so that a log never closed can be read
+  private MappedByteBuffer window;
+  private long windowPosition;
+  private long position; // the end of the last tick
+  private long numTicks;
+  private long[] keyframeTicks;
+  private double[] keyframeTimes;
+  private long[] keyframePositions;
+  private int numKeyframes;
+
+  /**
+   * The TrajectoryLog appends the state of every body at the end of every tick to a binary file, through a mapping of
+   * the file, for TrajectoryReader to replay or analyse it without simulating again
+   * Layout, all little endian:
+   * header: int MAGIC, int VERSION, long number of ticks, long end of the last tick, long position of the keyframe index
+   * ticks, one after the other from HEADER_SIZE on, each one in columns:
+   * long tick count, double time elapsed, int number of vehicles, int number of obstacles, then for each body in order
+   * all ids, all x, all y, all headings, all speeds and all phases, padded to a multiple of 8 bytes
+   * keyframe index, after the last tick: long number of keyframes, then KEYFRAME_SIZE bytes for every KEYFRAME_INTERVAL
+   * ticks, from the first one on. The position of the index is 0 until the log is closed, but the number of ticks and
+   * the end of the last tick are written after every tick, so that TrajectoryReader rebuilds the index of a log whose
+   * writer never closed it
+   *
+   * @param address the address of the file to be written, replaced if it exists
+   */
+  public TrajectoryLog(String address) throws IOException {
+
+    channel = FileChannel.open(Paths.get(address), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    position = HEADER_SIZE;
+    numTicks = 0;
+
+    keyframeTicks = new long[64];
+    keyframeTimes = new double[64];
+    keyframePositions = new long[64];
+    numKeyframes = 0;
+
+    header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+
+    writeHeader(0);
+
+  }
+
+  /**
+   *
+   * @param numBodies the number of bodies of a tick
+   * @return the size of the tick in the file
+   */
+  public static long getTickSize(int numBodies) {
+    return (TICK_HEADER_SIZE + (long)numBodies * BODY_SIZE + 7) & ~7L;
+  }
+
+  public long getNumTicks() {
+    return numTicks;
+  }
+
+  /**
+   *
+   * @return the number of bytes written so far, without the keyframe index
+   */
+  public long getSize() {
+    return position;
+  }
+
+  private void writeHeader(long indexPosition) {
+    header.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, numTicks).putLong(16, position).putLong(24, indexPosition);
+  }
+
+  /**
+   * maps the window the next tick is written into
+   */
+  private void ensureWindow(long size) throws IOException {
+
+    if(window != null && position + size <= windowPosition + window.capacity()) return;
+
+    windowPosition = position;
+    window = channel.map(FileChannel.MapMode.READ_WRITE, windowPosition, Math.max(WINDOW_SIZE, size));
+    window.order(ByteOrder.LITTLE_ENDIAN);
+
+  }
+
+  /**
+   * appends the state of the Crossroad and the obstacles at the end of a tick
+   *
+   * @param crossroad the Crossroad
+   * @param obstacles the obstacles
+   * @param timeElapsed the simulated time, in seconds
+   * @param tickCount the number of intervals simulated
+   */
+  public void append(Crossroad crossroad, ArrayList<Obstacle> obstacles, double timeElapsed, long tickCount)
+      throws IOException {
+
+    VehicleStore vehicles = crossroad.getVehicleStore();
+
+    int numVehicles = vehicles.size();
+    int numObstacles = obstacles.size();
+    int numBodies = numVehicles + numObstacles;
+    long size = getTickSize(numBodies);
+
+    ensureWindow(size);
+
+    if(numTicks % KEYFRAME_INTERVAL == 0) addKeyframe(tickCount, timeElapsed);
+
+    int offset = (int)(position - windowPosition);
+
+    window.putLong(offset, tickCount);
+    window.putDouble(offset + 8, timeElapsed);
+    window.putInt(offset + 16, numVehicles);
+    window.putInt(offset + 20, numObstacles);
+
+    int ids = offset + TICK_HEADER_SIZE;
+    int xPositions = ids + 4 * numBodies;
+    int yPositions = xPositions + 4 * numBodies;
+    int headings = yPositions + 4 * numBodies;
+    int speeds = headings + 4 * numBodies;
+    int phases = speeds + 4 * numBodies;
+
+    for(int index = 0; index < numVehicles; index++) {
+      window.putInt(ids + 4 * index, vehicles.getVehicle(index).getId());
+      window.putFloat(xPositions + 4 * index, (float)vehicles.getXPosition(index));
+      window.putFloat(yPositions + 4 * index, (float)vehicles.getYPosition(index));
+      window.putFloat(headings + 4 * index, (float)vehicles.getOrientation(index));
+      window.putFloat(speeds + 4 * index, (float)vehicles.getSpeed(index));
+      window.put(phases + index, (byte)vehicles.getState(index));
+    }
+
+    for(int i = 0; i < numObstacles; i++) {
+      Obstacle obstacle = obstacles.get(i);
+      int index = numVehicles + i;
+      window.putInt(ids + 4 * index, i);
+      window.putFloat(xPositions + 4 * index, (float)obstacle.getPosition().getXPosition());
+      window.putFloat(yPositions + 4 * index, (float)obstacle.getPosition().getYPosition());
+      window.putFloat(headings + 4 * index, (float)obstacle.getVelocity().getOrientation());
+      window.putFloat(speeds + 4 * index, (float)obstacle.getVelocity().getMagnitude());
+      window.put(phases + index, PHASE_OBSTACLE);
+    }
+
+    position += size;
+    numTicks++;
+
+    // the tick is complete before the header counts it
+
+    header.putLong(8, numTicks);
+    header.putLong(16, position);
+
+  }
+
+  private void addKeyframe(long tickCount, double timeElapsed) {
+
+    if(numKeyframes == keyframeTicks.length) {
+      keyframeTicks = Arrays.copyOf(keyframeTicks, numKeyframes * 2);
+      keyframeTimes = Arrays.copyOf(keyframeTimes, numKeyframes * 2);
+      keyframePositions = Arrays.copyOf(keyframePositions, numKeyframes * 2);
+    }
+
+    keyframeTicks[numKeyframes] = tickCount;
+    keyframeTimes[numKeyframes] = timeElapsed;
+    keyframePositions[numKeyframes++] = position;
+
+  }
+
+  /**
+   * appends the keyframe index after the last tick, completes the header and cuts the file after the index
+   */
+  public void close() throws IOException {
+
+    ByteBuffer index = ByteBuffer.allocate(8 + numKeyframes * KEYFRAME_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    index.putLong(numKeyframes);
+    for(int i = 0; i < numKeyframes; i++)
+      index.putLong(keyframeTicks[i]).putDouble(keyframeTimes[i]).putLong(keyframePositions[i]);
+    index.flip();
+
+    long indexPosition = position;
+    while(index.hasRemaining()) indexPosition += channel.write(index, indexPosition);
+
+    writeHeader(position);
+
+    window = null;
+
+    // some platforms refuse to truncate a file that is still mapped; the header tells where everything is anyway
+
+    try {
+      channel.truncate(indexPosition);
+    } catch(IOException ignored) {
+    }
+
+    channel.close();
+
+  }
+
+}
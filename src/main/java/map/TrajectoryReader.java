@@ -0,0 +1,334 @@
+package map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class TrajectoryReader {
+
+  private final FileChannel channel;
+  private final long numTicks;
+  private final long end;
+  private long[] keyframeTicks;
+  private double[] keyframeTimes;
+  private long[] keyframePositions;
+  private int numKeyframes;
+  private MappedByteBuffer window;
+  private long windowPosition;
+
+  private long position; // the start of the current tick, or -1 before the first one
+  private int offset; // the start of the current tick in the window
+  private long tickCount;
+  private double timeElapsed;
+  private int numVehicles;
+  private int numObstacles;
+
+  /**
+   * The TrajectoryReader goes through the ticks of a file written by TrajectoryLog, one after the other, reading them
+   * straight from a read-only mapping of the file, and seeks to any tick through the keyframe index of the file
+   *
+   * @param address the address of the file
+   */
+  public TrajectoryReader(String address) throws IOException {
+
+    channel = FileChannel.open(Paths.get(address), StandardOpenOption.READ);
+
+    ByteBuffer header = ByteBuffer.allocate(TrajectoryLog.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while(header.hasRemaining()) if(channel.read(header, header.position()) < 0) break;
+    header.flip();
+
+    if(header.remaining() < TrajectoryLog.HEADER_SIZE || header.getInt(0) != TrajectoryLog.MAGIC)
+      throw new IOException("NOT A TRAJECTORY LOG: " + address);
+    if(header.getInt(4) != TrajectoryLog.VERSION)
+      throw new IOException("UNSUPPORTED TRAJECTORY LOG VERSION: " + header.getInt(4));
+
+    numTicks = header.getLong(8);
+    end = header.getLong(16);
+
+    position = -1;
+
+    long indexPosition = header.getLong(24);
+
+    if(indexPosition > 0) {
+      readIndex(indexPosition);
+    } else {
+      buildIndex();
+    }
+
+  }
+
+  private void readIndex(long indexPosition) throws IOException {
+
+    ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    while(count.hasRemaining()) if(channel.read(count, indexPosition + count.position()) < 0) break;
+
+    numKeyframes = (int)count.getLong(0);
+
+    keyframeTicks = new long[numKeyframes];
+    keyframeTimes = new double[numKeyframes];
+    keyframePositions = new long[numKeyframes];
+
+    MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexPosition + 8,
+        (long)numKeyframes * TrajectoryLog.KEYFRAME_SIZE);
+    index.order(ByteOrder.LITTLE_ENDIAN);
+
+    for(int i = 0; i < numKeyframes; i++) {
+      keyframeTicks[i] = index.getLong();
+      keyframeTimes[i] = index.getDouble();
+      keyframePositions[i] = index.getLong();
+    }
+
+  }
+
+  /**
+   * builds the keyframe index of a log that was not closed, by going through the headers of its ticks
+   */
+  private void buildIndex() throws IOException {
+
+    numKeyframes = (int)((numTicks + TrajectoryLog.KEYFRAME_INTERVAL - 1) / TrajectoryLog.KEYFRAME_INTERVAL);
+
+    keyframeTicks = new long[numKeyframes];
+    keyframeTimes = new double[numKeyframes];
+    keyframePositions = new long[numKeyframes];
+
+    for(long tick = 0; advance(); tick++) if(tick % TrajectoryLog.KEYFRAME_INTERVAL == 0) {
+      int i = (int)(tick / TrajectoryLog.KEYFRAME_INTERVAL);
+      keyframeTicks[i] = tickCount;
+      keyframeTimes[i] = timeElapsed;
+      keyframePositions[i] = position;
+    }
+
+    position = -1;
+
+  }
+
+  /**
+   *
+   * @return the tick count of the first tick, or -1 if there is none
+   */
+  public long getFirstTickCount() {
+    return numKeyframes > 0 ? keyframeTicks[0] : -1;
+  }
+
+  /**
+   *
+   * @return the tick count of the last tick, assuming that the tick count grows by one from tick to tick
+   */
+  public long getLastTickCount() {
+    return getFirstTickCount() + numTicks - 1;
+  }
+
+  /**
+   * Moves to the last tick whose tick count is at most a given one, or to the first tick: the closest keyframe before it
+   * is found by a binary search, and at most KEYFRAME_INTERVAL - 1 ticks are then skipped, only reading their headers
+   *
+   * @param tickCount the tick count to be reached
+   * @return false if the log is empty
+   */
+  public boolean seek(long tickCount) throws IOException {
+
+    if(numKeyframes == 0) return false;
+
+    int keyframe = Arrays.binarySearch(keyframeTicks, 0, numKeyframes, tickCount);
+    if(keyframe < 0) keyframe = Math.max(0, -keyframe - 2);
+
+    moveTo(keyframePositions[keyframe]);
+
+    while(this.tickCount < tickCount && hasNext() && peekTickCount() <= tickCount) advance();
+
+    return true;
+  }
+
+  /**
+   * moves to the last tick simulated at most at a given time, or to the first tick
+   *
+   * @param timeElapsed the simulated time to be reached, in seconds
+   * @return false if the log is empty
+   */
+  public boolean seekTime(double timeElapsed) throws IOException {
+
+    if(numKeyframes == 0) return false;
+
+    int keyframe = Arrays.binarySearch(keyframeTimes, 0, numKeyframes, timeElapsed);
+    if(keyframe < 0) keyframe = Math.max(0, -keyframe - 2);
+
+    long ticks = (long)Math.floor((timeElapsed - keyframeTimes[keyframe]) / Main.INTERVAL + 1e-6);
+
+    return seek(keyframeTicks[keyframe] + ticks);
+  }
+
+  private long getNextPosition() {
+    return position < 0 ? TrajectoryLog.HEADER_SIZE : position + TrajectoryLog.getTickSize(numVehicles + numObstacles);
+  }
+
+  public boolean hasNext() {
+    return getNextPosition() < end;
+  }
+
+  /**
+   *
+   * @return the tick count of the next tick, which must exist
+   */
+  private long peekTickCount() throws IOException {
+
+    long next = getNextPosition();
+
+    ensureWindow(next, TrajectoryLog.TICK_HEADER_SIZE);
+    long nextTickCount = window.getLong(offset);
+    ensureWindow(position, TrajectoryLog.getTickSize(numVehicles + numObstacles));
+
+    return nextTickCount;
+  }
+
+  public long getNumTicks() {
+    return numTicks;
+  }
+
+  /**
+   * maps the window holding the bytes from position on
+   */
+  private void ensureWindow(long position, long size) throws IOException {
+
+    if(window == null || position < windowPosition || position + size > windowPosition + window.capacity()) {
+      windowPosition = position;
+      window = channel.map(FileChannel.MapMode.READ_ONLY, windowPosition,
+          Math.min(end - position, Math.max(TrajectoryLog.WINDOW_SIZE, size)));
+      window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    offset = (int)(position - windowPosition);
+
+  }
+
+  /**
+   * moves to the tick starting at a given position of the file
+   */
+  private void moveTo(long position) throws IOException {
+
+    ensureWindow(position, TrajectoryLog.TICK_HEADER_SIZE);
+
+    tickCount = window.getLong(offset);
+    timeElapsed = window.getDouble(offset + 8);
+    numVehicles = window.getInt(offset + 16);
+    numObstacles = window.getInt(offset + 20);
+
+    ensureWindow(position, TrajectoryLog.getTickSize(numVehicles + numObstacles));
+
+    this.position = position;
+
+  }
+
+  /**
+   * moves to the next tick
+   *
+   * @return false if there is no next tick
+   */
+  public boolean advance() throws IOException {
+
+    long next = getNextPosition();
+
+    if(next >= end) return false;
+
+    moveTo(next);
+
+    return true;
+  }
+
+  /**
+   *
+   * @return the position of the current tick in the file
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  public double getTimeElapsed() {
+    return timeElapsed;
+  }
+
+  public int getNumVehicles() {
+    return numVehicles;
+  }
+
+  public int getNumObstacles() {
+    return numObstacles;
+  }
+
+  public int getNumBodies() {
+    return numVehicles + numObstacles;
+  }
+
+  private int getColumn(int column) {
+    return offset + TrajectoryLog.TICK_HEADER_SIZE + 4 * column * getNumBodies();
+  }
+
+  public int getId(int index) {
+    return window.getInt(getColumn(0) + 4 * index);
+  }
+
+  public float getXPosition(int index) {
+    return window.getFloat(getColumn(1) + 4 * index);
+  }
+
+  public float getYPosition(int index) {
+    return window.getFloat(getColumn(2) + 4 * index);
+  }
+
+  public float getHeading(int index) {
+    return window.getFloat(getColumn(3) + 4 * index);
+  }
+
+  public float getSpeed(int index) {
+    return window.getFloat(getColumn(4) + 4 * index);
+  }
+
+  /**
+   *
+   * @param index the index of the body in the current tick
+   * @return the state of the vehicle, or TrajectoryLog.PHASE_OBSTACLE
+   */
+  public byte getPhase(int index) {
+    return window.get(getColumn(5) + index);
+  }
+
+  /**
+   * Fills a Snapshot with the current tick, drawing the vehicles as cars and the obstacles as pedestrians
+   *
+   * @param snapshot a Snapshot that is not published
+   */
+  public void read(Snapshot snapshot) {
+
+    snapshot.reset(numVehicles, numObstacles, timeElapsed, tickCount);
+
+    for(int index = 0; index < numVehicles; index++)
+      snapshot.setBody(index, getXPosition(index), getYPosition(index), getHeading(index), Car.ALONG, Car.ACROSS,
+          Car.colorRGBFromSpeed(getSpeed(index)));
+
+    for(int index = numVehicles; index < getNumBodies(); index++)
+      snapshot.setBody(index, getXPosition(index), getYPosition(index), getHeading(index),
+          Pedestrian.ALONG, Pedestrian.ACROSS, Pedestrian.COLOR.getRGB());
+
+  }
+
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+
+}
@@ -5,14 +5,15 @@ import java.awt.*;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 8.1,
-    lastModified = "05/09/2020",
+    currentRevision = 9.2,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public abstract class Vehicle extends Body {
 
   private int origin; // 0, 1, 2, 3
   private int destination; // corresponds to +x, +y, -x, -y direction
+  private int id; // the serial number of the vehicle in the Crossroad that spawned it
 
   /**
    * The Vehicle class inherits the Body class and is parallel to the Obstacle class
@@ -41,8 +42,25 @@ public abstract class Vehicle extends Body {
     return destination;
   }
 
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public int getId() {
+    return id;
+  }
+
   public abstract Color getColor();
 
+  /**
+   *
+   * @param speed the speed of the vehicle
+   * @return the color of the vehicle at that speed, in the sRGB form of Color.getRGB()
+   */
+  public int getColorRGB(double speed) {
+    return getColor().getRGB();
+  }
+
   public String toString() {
     return String.format("Vehicle:\tSize: %.2f * %.2f;\tPos: (%.2f, %.2f);\tVelocity: %.2f at %.2f.",
         this.getSize().getAlong(), this.getSize().getAcross(),
@@ -51,25 +69,7 @@ public abstract class Vehicle extends Body {
   }
 
   public void passTime(double factor, Acceleration acceleration) {
-
-    Velocity velocity = getVelocity();
-
-    double interval = Main.INTERVAL * factor;
-
-    double xMagnitude = velocity.getXMagnitude() + acceleration.getXMagnitude() * interval;
-    double yMagnitude = velocity.getYMagnitude() + acceleration.getYMagnitude() * interval;
-
-    double newMagnitude = Math.sqrt(Math.pow(xMagnitude, 2) + Math.pow(yMagnitude, 2));
-    double newOrientation = Math.atan2(yMagnitude, xMagnitude);
-
-    newMagnitude = Math.min(newMagnitude, Car.MAX_VELOCITY_MAGNITUDE);
-
-    setVelocity(new Velocity(newMagnitude, newOrientation));
-
-    setPosition(new Position(
-        getPosition().getXPosition() + getVelocity().getXMagnitude() * interval,
-        getPosition().getYPosition() + getVelocity().getYMagnitude() * interval));
-
+    Kinematics.integrate(this, acceleration, Main.INTERVAL * factor, Car.MAX_VELOCITY_MAGNITUDE);
   }
 
 }
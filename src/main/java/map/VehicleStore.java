@@ -0,0 +1,505 @@
+package map;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+@ClassPreamble (
+    author = "Daniel Chen",
+    date = "10/17/2026",
+    currentRevision = 2.5,
+    lastModified = "10/17/2026",
+    lastModifiedBy = "Daniel Chen"
+)
+public class VehicleStore {
+
+  public static final int INITIAL_CAPACITY = 64;
+
+  // the direction of each Lane, by its number: the heading of a vehicle at rest
+
+  private static final double[] LANE_X_DIRECTIONS = {1, 0, -1, 0};
+  private static final double[] LANE_Y_DIRECTIONS = {0, 1, 0, -1};
+
+  private double[] xPositions;
+  private double[] yPositions;
+  private double[] xVelocities;
+  private double[] yVelocities;
+  private double[] xAccelerations;
+  private double[] yAccelerations;
+  private double[] alongs;
+  private double[] acrosses;
+  private int[] origins;
+  private int[] destinations;
+  private byte[] states; // -1 pre-turn 0 turning 1 post-turn
+  private double[] spawnTimes; // when the vehicle appeared in the Crossroad
+  private double[] entryTimes; // when it entered the center, NaN until then
+  private double[] stoppedTimes; // how long it has been stopped, only kept up to date while metrics are recorded
+  private Vehicle[] vehicles; // views handed to the renderer
+  private int[] rowSlots; // the slot of each row, which moves with it
+  private int size;
+
+  // the slot map: a slot stays with a vehicle for its whole lifetime, whatever row it is moved to
+
+  private int[] slotRows; // the row of each slot, -1 while the slot is free
+  private int[] slotGenerations; // how many times each slot has been freed
+  private int[] nextFreeSlots; // the free slot after each free slot, -1 for the last one
+  private int numSlots;
+  private int freeSlot; // the last slot freed, -1 if there is none
+
+  /**
+   * The VehicleStore holds the state of the vehicles of a Crossroad in primitive columns, one row per vehicle,
+   * so that the Crossroad steps them without allocating anything
+   * The Vehicle objects are only kept as views, and are brought up to date by sync() when they are needed
+   * Rows are not stable: removing one moves the last row into its place. A vehicle is instead referred to by its handle,
+   * the slot it was given when added together with the generation of the slot, which goes stale once it is removed
+   */
+  public VehicleStore() {
+    this(INITIAL_CAPACITY);
+  }
+
+  public VehicleStore(int capacity) {
+
+    xPositions = new double[capacity];
+    yPositions = new double[capacity];
+    xVelocities = new double[capacity];
+    yVelocities = new double[capacity];
+    xAccelerations = new double[capacity];
+    yAccelerations = new double[capacity];
+    alongs = new double[capacity];
+    acrosses = new double[capacity];
+    origins = new int[capacity];
+    destinations = new int[capacity];
+    states = new byte[capacity];
+    spawnTimes = new double[capacity];
+    entryTimes = new double[capacity];
+    stoppedTimes = new double[capacity];
+    vehicles = new Vehicle[capacity];
+    rowSlots = new int[capacity];
+    size = 0;
+
+    slotRows = new int[capacity];
+    slotGenerations = new int[capacity];
+    nextFreeSlots = new int[capacity];
+    numSlots = 0;
+    freeSlot = -1;
+
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return xPositions.length;
+  }
+
+  private void grow() {
+
+    int capacity = Math.max(INITIAL_CAPACITY, xPositions.length * 2);
+
+    xPositions = Arrays.copyOf(xPositions, capacity);
+    yPositions = Arrays.copyOf(yPositions, capacity);
+    xVelocities = Arrays.copyOf(xVelocities, capacity);
+    yVelocities = Arrays.copyOf(yVelocities, capacity);
+    xAccelerations = Arrays.copyOf(xAccelerations, capacity);
+    yAccelerations = Arrays.copyOf(yAccelerations, capacity);
+    alongs = Arrays.copyOf(alongs, capacity);
+    acrosses = Arrays.copyOf(acrosses, capacity);
+    origins = Arrays.copyOf(origins, capacity);
+    destinations = Arrays.copyOf(destinations, capacity);
+    states = Arrays.copyOf(states, capacity);
+    spawnTimes = Arrays.copyOf(spawnTimes, capacity);
+    entryTimes = Arrays.copyOf(entryTimes, capacity);
+    stoppedTimes = Arrays.copyOf(stoppedTimes, capacity);
+    vehicles = Arrays.copyOf(vehicles, capacity);
+    rowSlots = Arrays.copyOf(rowSlots, capacity);
+
+    // there are never more slots in use than rows, so the slots only need to grow with the rows
+
+    slotRows = Arrays.copyOf(slotRows, capacity);
+    slotGenerations = Arrays.copyOf(slotGenerations, capacity);
+    nextFreeSlots = Arrays.copyOf(nextFreeSlots, capacity);
+
+  }
+
+  /**
+   * appends a row initialized from the Size, Position, Velocity, origin and destination of the vehicle,
+   * spawned at time 0, never in the center and never stopped
+   *
+   * @param vehicle the view of the new row
+   * @param state the state of the vehicle
+   * @return the index of the new row
+   */
+  public int add(Vehicle vehicle, int state) {
+
+    if(size == xPositions.length) grow();
+
+    xPositions[size] = vehicle.getPosition().getXPosition();
+    yPositions[size] = vehicle.getPosition().getYPosition();
+    xVelocities[size] = vehicle.getVelocity().getXMagnitude();
+    yVelocities[size] = vehicle.getVelocity().getYMagnitude();
+    xAccelerations[size] = 0;
+    yAccelerations[size] = 0;
+    alongs[size] = vehicle.getSize().getAlong();
+    acrosses[size] = vehicle.getSize().getAcross();
+    origins[size] = vehicle.getOrigin();
+    destinations[size] = vehicle.getDestination();
+    states[size] = (byte)state;
+    spawnTimes[size] = 0;
+    entryTimes[size] = Double.NaN;
+    stoppedTimes[size] = 0;
+    vehicles[size] = vehicle;
+
+    int slot = freeSlot;
+
+    if(slot >= 0) {
+      freeSlot = nextFreeSlots[slot];
+    } else {
+      slot = numSlots++;
+    }
+
+    slotRows[slot] = size;
+    rowSlots[size] = slot;
+
+    return size++;
+  }
+
+  /**
+   * removes a row in constant time by moving the last row into its place; the handle of the removed vehicle goes
+   * stale, and that of the moved one still refers to it
+   *
+   * @param index the index of the row to be removed
+   */
+  public void remove(int index) {
+
+    int slot = rowSlots[index];
+
+    slotRows[slot] = -1;
+    slotGenerations[slot]++;
+    nextFreeSlots[slot] = freeSlot;
+    freeSlot = slot;
+
+    int last = --size;
+
+    if(index != last) {
+
+      xPositions[index] = xPositions[last];
+      yPositions[index] = yPositions[last];
+      xVelocities[index] = xVelocities[last];
+      yVelocities[index] = yVelocities[last];
+      xAccelerations[index] = xAccelerations[last];
+      yAccelerations[index] = yAccelerations[last];
+      alongs[index] = alongs[last];
+      acrosses[index] = acrosses[last];
+      origins[index] = origins[last];
+      destinations[index] = destinations[last];
+      states[index] = states[last];
+      spawnTimes[index] = spawnTimes[last];
+      entryTimes[index] = entryTimes[last];
+      stoppedTimes[index] = stoppedTimes[last];
+      vehicles[index] = vehicles[last];
+      rowSlots[index] = rowSlots[last];
+
+      slotRows[rowSlots[index]] = index;
+
+    }
+
+    vehicles[last] = null;
+
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @return the handle of the vehicle of the row, which refers to it until it is removed, wherever its row is moved to
+   */
+  public long getHandle(int index) {
+
+    int slot = rowSlots[index];
+
+    return (long)slotGenerations[slot] << 32 | slot;
+  }
+
+  /**
+   *
+   * @param handle the handle of a vehicle
+   * @return the index of the row of the vehicle, or -1 if it has been removed since
+   */
+  public int getIndex(long handle) {
+
+    int slot = (int)handle;
+
+    if(slot < 0 || slot >= numSlots || slotGenerations[slot] != (int)(handle >>> 32)) return -1;
+
+    return slotRows[slot];
+  }
+
+  public double getXPosition(int index) {
+    return xPositions[index];
+  }
+
+  public double getYPosition(int index) {
+    return yPositions[index];
+  }
+
+  public double getPosition(int index, boolean isX) {
+    return isX ? xPositions[index] : yPositions[index];
+  }
+
+  public double getXVelocity(int index) {
+    return xVelocities[index];
+  }
+
+  public double getYVelocity(int index) {
+    return yVelocities[index];
+  }
+
+  public double getXAcceleration(int index) {
+    return xAccelerations[index];
+  }
+
+  public double getYAcceleration(int index) {
+    return yAccelerations[index];
+  }
+
+  public double getAlong(int index) {
+    return alongs[index];
+  }
+
+  public double getAcross(int index) {
+    return acrosses[index];
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @return the magnitude of the velocity of the vehicle
+   */
+  public double getSpeed(int index) {
+    return Velocity.magnitudeFromComponents(xVelocities[index], yVelocities[index]);
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @return the orientation of the vehicle: that of its velocity, or that of its Lane at rest
+   */
+  public double getOrientation(int index) {
+
+    if(xVelocities[index] == 0 && yVelocities[index] == 0) return Math.PI * getRestingLaneNum(index) / 2;
+
+    return Velocity.orientationFromComponents(xVelocities[index], yVelocities[index]);
+  }
+
+  /**
+   * A velocity stored as components has no direction at rest, so a vehicle at rest faces along its Lane: the Lane of
+   * its destination once it has turned, that of its origin otherwise, including while it turns
+   *
+   * @param index the index of the row
+   * @return the number of the Lane the vehicle faces along at rest
+   */
+  private int getRestingLaneNum(int index) {
+    return states[index] == 1 ? destinations[index] : (origins[index] + 2) % 4;
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @return the horizontal component of a vector the vehicle faces along: its velocity, or the direction of its Lane at
+   * rest
+   */
+  public double getXHeading(int index) {
+
+    if(xVelocities[index] == 0 && yVelocities[index] == 0) return LANE_X_DIRECTIONS[getRestingLaneNum(index)];
+
+    return xVelocities[index];
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @return the vertical component of a vector the vehicle faces along: its velocity, or the direction of its Lane at
+   * rest
+   */
+  public double getYHeading(int index) {
+
+    if(xVelocities[index] == 0 && yVelocities[index] == 0) return LANE_Y_DIRECTIONS[getRestingLaneNum(index)];
+
+    return yVelocities[index];
+  }
+
+  public int getOrigin(int index) {
+    return origins[index];
+  }
+
+  public int getDestination(int index) {
+    return destinations[index];
+  }
+
+  public int getState(int index) {
+    return states[index];
+  }
+
+  public double getSpawnTime(int index) {
+    return spawnTimes[index];
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @return when the vehicle entered the center, or NaN if it has not yet
+   */
+  public double getEntryTime(int index) {
+    return entryTimes[index];
+  }
+
+  public double getStoppedTime(int index) {
+    return stoppedTimes[index];
+  }
+
+  public Vehicle getVehicle(int index) {
+    return vehicles[index];
+  }
+
+  public void setPosition(int index, double xPosition, double yPosition) {
+    xPositions[index] = xPosition;
+    yPositions[index] = yPosition;
+  }
+
+  public void setVelocity(int index, double xVelocity, double yVelocity) {
+    xVelocities[index] = xVelocity;
+    yVelocities[index] = yVelocity;
+  }
+
+  public void setAcceleration(int index, double xAcceleration, double yAcceleration) {
+    xAccelerations[index] = xAcceleration;
+    yAccelerations[index] = yAcceleration;
+  }
+
+  public void setState(int index, int state) {
+    states[index] = (byte)state;
+  }
+
+  public void setSpawnTime(int index, double spawnTime) {
+    spawnTimes[index] = spawnTime;
+  }
+
+  public void setEntryTime(int index, double entryTime) {
+    entryTimes[index] = entryTime;
+  }
+
+  public void setStoppedTime(int index, double stoppedTime) {
+    stoppedTimes[index] = stoppedTime;
+  }
+
+  /**
+   *
+   * @param index the index of the row
+   * @param vehicle the new view of the row, whose Position and Velocity are brought up to date by sync()
+   */
+  public void setVehicle(int index, Vehicle vehicle) {
+    vehicles[index] = vehicle;
+  }
+
+  /**
+   * replaces the rows of this store with copies of those of another one; the views are still those of the other store
+   * and must be replaced with setVehicle()
+   *
+   * @param other the store to be copied
+   */
+  public void copyFrom(VehicleStore other) {
+
+    xPositions = other.xPositions.clone();
+    yPositions = other.yPositions.clone();
+    xVelocities = other.xVelocities.clone();
+    yVelocities = other.yVelocities.clone();
+    xAccelerations = other.xAccelerations.clone();
+    yAccelerations = other.yAccelerations.clone();
+    alongs = other.alongs.clone();
+    acrosses = other.acrosses.clone();
+    origins = other.origins.clone();
+    destinations = other.destinations.clone();
+    states = other.states.clone();
+    spawnTimes = other.spawnTimes.clone();
+    entryTimes = other.entryTimes.clone();
+    stoppedTimes = other.stoppedTimes.clone();
+    vehicles = other.vehicles.clone();
+    rowSlots = other.rowSlots.clone();
+    size = other.size;
+
+    slotRows = other.slotRows.clone();
+    slotGenerations = other.slotGenerations.clone();
+    nextFreeSlots = other.nextFreeSlots.clone();
+    numSlots = other.numSlots;
+    freeSlot = other.freeSlot;
+
+  }
+
+  /**
+   * writes the slot map, so that the handles given out before stay valid once it is read back:
+   * int number of slots, int last slot freed, then for each slot: int row, int generation, int next free slot
+   *
+   * @param output where the slot map is written
+   */
+  public void writeSlots(DataOutput output) throws IOException {
+
+    output.writeInt(numSlots);
+    output.writeInt(freeSlot);
+
+    for(int slot = 0; slot < numSlots; slot++) {
+      output.writeInt(slotRows[slot]);
+      output.writeInt(slotGenerations[slot]);
+      output.writeInt(nextFreeSlots[slot]);
+    }
+
+  }
+
+  /**
+   * replaces the slot map with one written by writeSlots(), once every row has been added back in the order it was
+   * written in
+   *
+   * @param input where the slot map is read from
+   */
+  public void readSlots(DataInput input) throws IOException {
+
+    int numSlots = input.readInt();
+
+    while(xPositions.length < numSlots) grow();
+
+    this.numSlots = numSlots;
+    freeSlot = input.readInt();
+
+    for(int slot = 0; slot < numSlots; slot++) {
+
+      slotRows[slot] = input.readInt();
+      slotGenerations[slot] = input.readInt();
+      nextFreeSlots[slot] = input.readInt();
+
+      if(slotRows[slot] >= size) throw new IOException(String.format("INVALID ROW OF SLOT %d: %d", slot,
+          slotRows[slot]));
+
+      if(slotRows[slot] >= 0) rowSlots[slotRows[slot]] = slot;
+
+    }
+
+  }
+
+  /**
+   * copies the state of a row into its view, reusing the Position and Velocity objects of the view
+   *
+   * @param index the index of the row
+   * @return the view, up to date
+   */
+  public Vehicle sync(int index) {
+
+    Vehicle vehicle = vehicles[index];
+
+    vehicle.getPosition().setXPosition(xPositions[index]);
+    vehicle.getPosition().setYPosition(yPositions[index]);
+    vehicle.getVelocity().setComponents(xVelocities[index], yVelocities[index]);
+
+    return vehicle;
+  }
+
+}
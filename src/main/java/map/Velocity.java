@@ -3,8 +3,8 @@ package map;
 @ClassPreamble (
     author = "Daniel Chen",
     date = "01/14/2020",
-    currentRevision = 4,
-    lastModified = "02/18/2020",
+    currentRevision = 5,
+    lastModified = "10/17/2026",
     lastModifiedBy = "Daniel Chen"
 )
 public class Velocity {
@@ -18,12 +18,13 @@ public class Velocity {
   }
 
   public static Velocity velocityFromComponents(double xComponent, double yComponent) {
-    return new Velocity(magnitudeFromComponents(xComponent, yComponent),
-        orientationFromComponents(xComponent, yComponent));
+    Velocity velocity = new Velocity();
+    velocity.setComponents(xComponent, yComponent);
+    return velocity;
   }
 
-  private double magnitude;
-  private double orientation;
+  private double xComponent;
+  private double yComponent;
 
   /**
    * This class is used as a basis for other classes
@@ -33,33 +34,53 @@ public class Velocity {
    */
   public Velocity(double magnitude, double orientation) {
 
-    this.magnitude = magnitude;
-    this.orientation = orientation;
+    setPolar(magnitude, orientation);
 
   }
 
+  /**
+   * The vector is stored by its components so that integrating it never goes through trigonometry;
+   * the polar form is only computed when asked for, e.g. by the renderer
+   */
+  private Velocity() {
+  }
+
   public double getMagnitude() {
-    return magnitude;
+    return magnitudeFromComponents(xComponent, yComponent);
   }
 
+  /**
+   *
+   * @return the orientation of the vector, 0 if the vector is null
+   */
   public double getOrientation() {
-    return orientation;
+    return orientationFromComponents(xComponent, yComponent);
   }
 
   public void setMagnitude(double magnitude) {
-    this.magnitude = magnitude;
+    setPolar(magnitude, getOrientation());
   }
 
   public void setOrientation(double orientation) {
-    this.orientation = orientation;
+    setPolar(getMagnitude(), orientation);
+  }
+
+  public void setPolar(double magnitude, double orientation) {
+    xComponent = magnitude * Math.cos(orientation);
+    yComponent = magnitude * Math.sin(orientation);
+  }
+
+  public void setComponents(double xComponent, double yComponent) {
+    this.xComponent = xComponent;
+    this.yComponent = yComponent;
   }
 
   public double getXMagnitude() {
-    return magnitude * Math.cos(orientation);
+    return xComponent;
   }
 
   public double getYMagnitude() {
-    return magnitude * Math.sin(orientation);
+    return yComponent;
   }
 
 }